@@ -0,0 +1,121 @@
+package com.aalizzwell.zxing.benchmark;
+
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 生成基准测试用的NV21帧
+ * 亮度平面为带噪声的浅色背景，扫描框中央画一个二维码；色度平面填128。
+ */
+final class BenchmarkFrames {
+
+    static final String CONTENT = "https://github.com/Aallizzwell/zxing?benchmark=1";
+
+    private BenchmarkFrames() {
+    }
+
+    /**
+     * @param frameSize 宽x高，例如"1920x1080"，传感器方向总是横向
+     */
+    static int[] parseSize(String frameSize) {
+        int x = frameSize.indexOf('x');
+        return new int[]{Integer.parseInt(frameSize.substring(0, x)), Integer.parseInt(frameSize.substring(x + 1))};
+    }
+
+    /**
+     * @param portrait 竖屏时预览帧需要顺时针旋转90度
+     */
+    static int rotation(boolean portrait) {
+        return portrait ? 90 : 0;
+    }
+
+    /**
+     * 与CameraManager计算扫描框的方式一致：短边的0.6倍的正方形，水平居中，上方留1/3的空白
+     *
+     * @param fullScreen 是否全屏识别
+     */
+    static FrameGeometry geometry(int width, int height, int rotation, boolean fullScreen) {
+        if (fullScreen) {
+            return FrameGeometry.fullFrame(rotation, width, height);
+        }
+        boolean swapped = rotation % 180 != 0;
+        int rotatedWidth = swapped ? height : width;
+        int rotatedHeight = swapped ? width : height;
+        int size = (int) (Math.min(rotatedWidth, rotatedHeight) * 0.6);
+        int left = (rotatedWidth - size) / 2;
+        int top = (rotatedHeight - size) / 3;
+        return new FrameGeometry(rotation, left, top, left + size, top + size);
+    }
+
+    /**
+     * @param geometry 二维码画在扫描框中央，边长为扫描框的一半
+     */
+    static byte[] nv21WithCode(int width, int height, FrameGeometry geometry) {
+        byte[] data = new byte[width * height * 3 / 2];
+        Random random = new Random(42);
+        for (int i = 0; i < width * height; i++) {
+            data[i] = (byte) (200 + random.nextInt(16));
+        }
+        for (int i = width * height; i < data.length; i++) {
+            data[i] = (byte) 128;
+        }
+        int areaWidth = geometry.getRight() - geometry.getLeft();
+        int areaHeight = geometry.getBottom() - geometry.getTop();
+        int size = Math.min(areaWidth, areaHeight) / 2;
+        BitMatrix code = encode(CONTENT, size);
+        int originX = geometry.getLeft() + (areaWidth - code.getWidth()) / 2;
+        int originY = geometry.getTop() + (areaHeight - code.getHeight()) / 2;
+        int rotation = geometry.getRotation();
+        for (int y = 0; y < code.getHeight(); y++) {
+            for (int x = 0; x < code.getWidth(); x++) {
+                if (!code.get(x, y)) {
+                    continue;
+                }
+                // Map the rotated coordinate back to the sensor frame
+                int rx = originX + x;
+                int ry = originY + y;
+                int sx;
+                int sy;
+                switch (rotation) {
+                    case 90:
+                        sx = ry;
+                        sy = height - 1 - rx;
+                        break;
+                    case 180:
+                        sx = width - 1 - rx;
+                        sy = height - 1 - ry;
+                        break;
+                    case 270:
+                        sx = width - 1 - ry;
+                        sy = rx;
+                        break;
+                    default:
+                        sx = rx;
+                        sy = ry;
+                        break;
+                }
+                data[sy * width + sx] = (byte) (30 + random.nextInt(16));
+            }
+        }
+        return data;
+    }
+
+    static BitMatrix encode(String content, int size) {
+        Map<EncodeHintType, Object> hints = new EnumMap<EncodeHintType, Object>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, 2);
+        try {
+            return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+        } catch (WriterException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
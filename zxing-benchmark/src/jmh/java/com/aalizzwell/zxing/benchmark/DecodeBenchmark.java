@@ -0,0 +1,89 @@
+package com.aalizzwell.zxing.benchmark;
+
+import com.aalizzwell.zxing.decode.DecodeFormatManager;
+import com.aalizzwell.zxing.decode.RotatedCropLuminanceSource;
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单帧二值化加reader的耗时
+ * 帧里只有一个二维码，不包含二维码的格式集合测的是识别失败一帧的代价。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecodeBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"true", "false"})
+    public boolean portrait;
+
+    @Param({"false", "true"})
+    public boolean fullScreen;
+
+    @Param({"hybrid", "globalHistogram"})
+    public String binarizer;
+
+    /**
+     * CAPTURE为扫码界面默认的格式，其余为Intents.Scan中的模式
+     */
+    @Param({"CAPTURE", "QR_CODE_MODE", "DATA_MATRIX_MODE", "ONE_D_MODE", "PRODUCT_MODE"})
+    public String mode;
+
+    private RotatedCropLuminanceSource source;
+    private final MultiFormatReader reader = new MultiFormatReader();
+
+    @Setup
+    public void setUp() {
+        int[] size = BenchmarkFrames.parseSize(frameSize);
+        FrameGeometry geometry = BenchmarkFrames.geometry(size[0], size[1], BenchmarkFrames.rotation(portrait), fullScreen);
+        byte[] data = BenchmarkFrames.nv21WithCode(size[0], size[1], geometry);
+        source = geometry.buildLuminanceSource(data, size[0], size[1], null, null);
+        Set<BarcodeFormat> formats = "CAPTURE".equals(mode)
+                ? DecodeFormatManager.getCaptureFormats(true)
+                : DecodeFormatManager.FORMATS_FOR_MODE.get(mode);
+        Map<DecodeHintType, Object> hints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+        hints.put(DecodeHintType.CHARACTER_SET, "UTF8");
+        reader.setHints(hints);
+    }
+
+    @Benchmark
+    public Result decode() {
+        Binarizer theBinarizer = "hybrid".equals(binarizer)
+                ? new HybridBinarizer(source)
+                : new GlobalHistogramBinarizer(source);
+        try {
+            return reader.decodeWithState(new BinaryBitmap(theBinarizer));
+        } catch (ReaderException e) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.aalizzwell.zxing.benchmark;
+
+import com.aalizzwell.zxing.encode.BitMatrixRenderer;
+import com.aalizzwell.zxing.encode.PngWriter;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成二维码的耗时：编码为BitMatrix，以及转为像素数组
+ * 参数与QRCodeUtil.createQRCode一致（H级容错、1个模块的边距）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncodeBenchmark {
+
+    @Param({"16", "128", "512", "1024"})
+    public int contentLength;
+
+    @Param({"256", "512", "1024"})
+    public int size;
+
+    private String content;
+    private final Map<EncodeHintType, Object> hints = new HashMap<EncodeHintType, Object>();
+    private final QRCodeWriter writer = new QRCodeWriter();
+    private BitMatrix matrix;
+    private int[] pixels;
+    private final PngWriter pngWriter = new PngWriter();
+    private final ByteArrayOutputStream png = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws WriterException {
+        StringBuilder builder = new StringBuilder(contentLength);
+        for (int i = 0; i < contentLength; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        content = builder.toString();
+        hints.put(EncodeHintType.CHARACTER_SET, "utf-8");
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
+        hints.put(EncodeHintType.MARGIN, 1);
+        matrix = encode();
+    }
+
+    @Benchmark
+    public BitMatrix encode() throws WriterException {
+        return writer.encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+    }
+
+    @Benchmark
+    public int[] render() {
+        return BitMatrixRenderer.toPixels(matrix, BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+    }
+
+    @Benchmark
+    public int[] renderReusingBuffer() {
+        pixels = BitMatrixRenderer.toPixels(matrix, BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE, pixels);
+        return pixels;
+    }
+
+    @Benchmark
+    public int[] encodeAndRender() throws WriterException {
+        return BitMatrixRenderer.toPixels(encode(), BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+    }
+
+    @Benchmark
+    public int writePng() throws IOException {
+        png.reset();
+        pngWriter.write(matrix, png);
+        return png.size();
+    }
+
+}
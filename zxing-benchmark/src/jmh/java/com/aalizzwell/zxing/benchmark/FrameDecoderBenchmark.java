@@ -0,0 +1,88 @@
+package com.aalizzwell.zxing.benchmark;
+
+import com.aalizzwell.zxing.camera.OnPreviewFrameListener;
+import com.aalizzwell.zxing.decode.DecodeFormatManager;
+import com.aalizzwell.zxing.decode.FrameDecoder;
+import com.aalizzwell.zxing.decode.FrameQualityGate;
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.aalizzwell.zxing.frame.FrameSource;
+import com.aalizzwell.zxing.metrics.ScanMetrics;
+import com.google.zxing.Result;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫码界面的完整单帧流程：取亮度数据、质量过滤、金字塔解码和统计
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrameDecoderBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"false", "true"})
+    public boolean fullScreen;
+
+    @Param({"true", "false"})
+    public boolean pyramidDecode;
+
+    @Param({"true", "false"})
+    public boolean qualityGate;
+
+    private byte[] data;
+    private int width;
+    private int height;
+    private FrameDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        int[] size = BenchmarkFrames.parseSize(frameSize);
+        width = size[0];
+        height = size[1];
+        final FrameGeometry geometry = BenchmarkFrames.geometry(width, height, BenchmarkFrames.rotation(true), fullScreen);
+        data = BenchmarkFrames.nv21WithCode(width, height, geometry);
+        FrameSource source = new FrameSource() {
+            @Override
+            public void startFrames(OnPreviewFrameListener listener) {
+            }
+
+            @Override
+            public void stopFrames() {
+            }
+
+            @Override
+            public FrameGeometry getFrameGeometry(byte[] data, int width, int height) {
+                return geometry;
+            }
+
+            @Override
+            public boolean isLossless() {
+                return false;
+            }
+
+            @Override
+            public void releaseFrame(byte[] data) {
+                // the same frame is decoded again
+            }
+        };
+        decoder = new FrameDecoder(source, DecodeFormatManager.buildCaptureHints(true), null, null,
+                qualityGate ? new FrameQualityGate() : null, pyramidDecode, new ScanMetrics());
+    }
+
+    @Benchmark
+    public Result decode() {
+        return decoder.decode(data, width, height);
+    }
+
+}
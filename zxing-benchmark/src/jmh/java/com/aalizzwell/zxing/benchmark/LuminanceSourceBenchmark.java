@@ -0,0 +1,64 @@
+package com.aalizzwell.zxing.benchmark;
+
+import com.aalizzwell.zxing.decode.RotatedCropLuminanceSource;
+import com.aalizzwell.zxing.frame.FrameGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从NV21预览帧取扫描区域亮度数据（裁剪加旋转）的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LuminanceSourceBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"true", "false"})
+    public boolean portrait;
+
+    @Param({"false", "true"})
+    public boolean fullScreen;
+
+    private byte[] data;
+    private int width;
+    private int height;
+    private FrameGeometry geometry;
+    private byte[] reuseBuffer;
+
+    @Setup
+    public void setUp() {
+        int[] size = BenchmarkFrames.parseSize(frameSize);
+        width = size[0];
+        height = size[1];
+        geometry = BenchmarkFrames.geometry(width, height, BenchmarkFrames.rotation(portrait), fullScreen);
+        data = BenchmarkFrames.nv21WithCode(width, height, geometry);
+    }
+
+    /**
+     * 每帧复用缓冲区，与解码线程的用法一致
+     */
+    @Benchmark
+    public byte[] buildReused() {
+        RotatedCropLuminanceSource source = geometry.buildLuminanceSource(data, width, height, null, reuseBuffer);
+        reuseBuffer = source.getBuffer();
+        return source.getMatrix();
+    }
+
+    @Benchmark
+    public byte[] buildAllocating() {
+        return geometry.buildLuminanceSource(data, width, height, null, null).getMatrix();
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.aalizzwell.zxing.camera;
+
+/**
+ * 连续接收预览帧
+ * 缓冲模式下，接收方用完数据后需要调用{@link com.aalizzwell.zxing.frame.FrameSource#releaseFrame(byte[])}归还缓冲区
+ */
+public interface OnPreviewFrameListener {
+
+    void onPreviewFrame(byte[] data, int width, int height);
+}
@@ -0,0 +1,147 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 自适应格式调度
+ * 在最近若干次解码的滑动窗口内统计每种格式的命中次数和耗时。某种格式命中足够多时，之后的帧只用该格式的reader单独识别，
+ * 每隔cadence帧再用全部格式识别一次，以便发现其他格式的码。
+ * 所有解码线程共用一个实例。
+ */
+public final class AdaptiveFormatScheduler {
+
+    static final int DEFAULT_WINDOW_SIZE = 32;
+    /*窗口内至少命中这么多次才单独识别该格式*/
+    private static final int MIN_HITS = 2;
+    private static final int NONE = -1;
+
+    private static final BarcodeFormat[] ALL_FORMATS = BarcodeFormat.values();
+    /*全部格式一起识别时的统计下标*/
+    private static final int FULL_SET = ALL_FORMATS.length;
+
+    private final Set<BarcodeFormat> formats;
+    private final int cadence;
+
+    private final int[] windowAttempts;
+    private final int[] windowHits;
+    private final long[] windowCosts;
+    private int windowNext;
+    private int windowCount;
+
+    private final int[] hits = new int[ALL_FORMATS.length];
+    private final int[] attempts = new int[FULL_SET + 1];
+    private final long[] costs = new long[FULL_SET + 1];
+    private long frames;
+
+    /**
+     * @param formats    参与识别的格式
+     * @param windowSize 滑动窗口大小
+     * @param cadence    每隔多少帧用全部格式识别一次，小于等于1时总是识别全部格式
+     */
+    public AdaptiveFormatScheduler(Collection<BarcodeFormat> formats, int windowSize, int cadence) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Bad window size: " + windowSize);
+        }
+        this.formats = formats.isEmpty() ? EnumSet.noneOf(BarcodeFormat.class) : EnumSet.copyOf(formats);
+        this.cadence = cadence;
+        windowAttempts = new int[windowSize];
+        windowHits = new int[windowSize];
+        windowCosts = new long[windowSize];
+    }
+
+    /**
+     * 决定这一帧用哪种格式识别
+     *
+     * @return 单独识别的格式，null表示识别全部格式
+     */
+    public synchronized BarcodeFormat nextFormat() {
+        frames++;
+        if (cadence <= 1 || formats.size() <= 1 || frames % cadence == 0) {
+            return null;
+        }
+        BarcodeFormat best = null;
+        int bestHits = MIN_HITS - 1;
+        for (BarcodeFormat format : formats) {
+            int formatHits = hits[format.ordinal()];
+            if (formatHits > bestHits || (formatHits == bestHits && best != null
+                    && getAverageCostNanos(format) < getAverageCostNanos(best))) {
+                best = format;
+                bestHits = formatHits;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 记录一次识别
+     *
+     * @param attempted  {@link #nextFormat()}返回的格式，null表示全部格式
+     * @param found      识别出的格式，失败为null
+     * @param costNanos  识别耗时
+     */
+    public synchronized void record(BarcodeFormat attempted, BarcodeFormat found, long costNanos) {
+        int attemptIndex = attempted == null ? FULL_SET : attempted.ordinal();
+        int hitIndex = found == null ? NONE : found.ordinal();
+        if (windowCount == windowAttempts.length) {
+            // Evict the oldest entry
+            int oldAttempt = windowAttempts[windowNext];
+            int oldHit = windowHits[windowNext];
+            attempts[oldAttempt]--;
+            costs[oldAttempt] -= windowCosts[windowNext];
+            if (oldHit != NONE) {
+                hits[oldHit]--;
+            }
+        } else {
+            windowCount++;
+        }
+        windowAttempts[windowNext] = attemptIndex;
+        windowHits[windowNext] = hitIndex;
+        windowCosts[windowNext] = costNanos;
+        attempts[attemptIndex]++;
+        costs[attemptIndex] += costNanos;
+        if (hitIndex != NONE) {
+            hits[hitIndex]++;
+        }
+        windowNext = (windowNext + 1) % windowAttempts.length;
+    }
+
+    /**
+     * @return 窗口内该格式的命中次数
+     */
+    public synchronized int getHits(BarcodeFormat format) {
+        return hits[format.ordinal()];
+    }
+
+    /**
+     * @return 窗口内单独识别该格式的平均耗时，没有记录时为0
+     */
+    public synchronized long getAverageCostNanos(BarcodeFormat format) {
+        int index = format.ordinal();
+        return attempts[index] == 0 ? 0 : costs[index] / attempts[index];
+    }
+
+    /**
+     * @return 窗口内识别全部格式的平均耗时，没有记录时为0
+     */
+    public synchronized long getAverageFullSetCostNanos() {
+        return attempts[FULL_SET] == 0 ? 0 : costs[FULL_SET] / attempts[FULL_SET];
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("AdaptiveFormatScheduler{");
+        for (BarcodeFormat format : formats) {
+            int index = format.ordinal();
+            if (hits[index] > 0 || attempts[index] > 0) {
+                builder.append(format).append(": hits=").append(hits[index])
+                        .append(", avgNanos=").append(getAverageCostNanos(format)).append("; ");
+            }
+        }
+        return builder.append("full set avgNanos=").append(getAverageFullSetCostNanos()).append('}').toString();
+    }
+
+}
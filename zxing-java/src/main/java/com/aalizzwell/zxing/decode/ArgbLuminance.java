@@ -0,0 +1,40 @@
+package com.aalizzwell.zxing.decode;
+
+/**
+ * ARGB像素转亮度
+ * 按BT.601加权（0.299R + 0.587G + 0.114B），半透明像素按叠加在白色背景上计算，透明背景的码图不会变成全黑。
+ */
+public final class ArgbLuminance {
+
+    private ArgbLuminance() {
+    }
+
+    public static int of(int argb) {
+        int alpha = argb >>> 24;
+        int luminance = (77 * ((argb >> 16) & 0xff) + 150 * ((argb >> 8) & 0xff) + 29 * (argb & 0xff)) >> 8;
+        if (alpha == 0xff) {
+            return luminance;
+        }
+        return (luminance * alpha + 0xff * (0xff - alpha)) / 0xff;
+    }
+
+    /**
+     * @param argb       ARGB像素
+     * @param argbOffset 起始位置
+     * @param out        亮度
+     * @param outOffset  起始位置
+     * @param count      像素数
+     */
+    public static void convert(int[] argb, int argbOffset, byte[] out, int outOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            int pixel = argb[argbOffset + i];
+            if (pixel >>> 24 == 0xff) {
+                out[outOffset + i] = (byte) ((77 * ((pixel >> 16) & 0xff) + 150 * ((pixel >> 8) & 0xff)
+                        + 29 * (pixel & 0xff)) >> 8);
+            } else {
+                out[outOffset + i] = (byte) of(pixel);
+            }
+        }
+    }
+
+}
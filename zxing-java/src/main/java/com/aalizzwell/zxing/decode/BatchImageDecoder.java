@@ -0,0 +1,318 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量识别图片
+ * 图片在固定数量的解码线程上按{@link MultiScaleDecoder}识别，每个线程复用自己的reader和缓冲区，结果在每张图片识别结束后立即回调。
+ * 一批图片可以随时取消，取消后不再回调。不依赖Android，服务端批量处理同样可用。
+ *
+ * @param <T> 图片的标识，例如Uri、文件路径
+ */
+public final class BatchImageDecoder<T> {
+
+    private final ImageSourceLoader<T> loader;
+    private final Map<DecodeHintType, ?> hints;
+    private final MultiScaleOption option;
+    private final int threadCount;
+    private final ExecutorService executor;
+    /*空闲的reader和缓冲区，跨批次复用*/
+    private final BlockingQueue<Worker> idleWorkers;
+    private volatile DecodeResultCache resultCache;
+    private volatile CacheKeyProvider<? super T> cacheKeyProvider;
+
+    /**
+     * @param loader      读取图片
+     * @param hints       reader的hints，见{@link DecodeFormatManager#buildImageHints()}
+     * @param threadCount 解码线程数
+     */
+    public BatchImageDecoder(ImageSourceLoader<T> loader, Map<DecodeHintType, ?> hints, int threadCount) {
+        this(loader, hints, threadCount, new MultiScaleOption());
+    }
+
+    /**
+     * @param loader      读取图片
+     * @param hints       reader的hints，见{@link DecodeFormatManager#buildImageHints()}
+     * @param threadCount 解码线程数
+     * @param option      多尺度识别的配置项
+     */
+    public BatchImageDecoder(ImageSourceLoader<T> loader, Map<DecodeHintType, ?> hints, int threadCount,
+                             MultiScaleOption option) {
+        this.loader = loader;
+        this.hints = hints;
+        this.option = option;
+        this.threadCount = Math.max(1, threadCount);
+        idleWorkers = new ArrayBlockingQueue<Worker>(this.threadCount);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threadCount, this.threadCount,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BatchImageDecoder-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Idle decode threads go away; readers and buffers are kept in idleWorkers
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /**
+     * 识别前先查询缓存，识别后写入缓存
+     *
+     * @param cache       结果缓存，为null时不使用缓存
+     * @param keyProvider 图片在缓存中的key
+     */
+    public void setResultCache(DecodeResultCache cache, CacheKeyProvider<? super T> keyProvider) {
+        this.cacheKeyProvider = keyProvider;
+        this.resultCache = cache;
+    }
+
+    /**
+     * 识别一批图片，回调在解码线程上执行
+     */
+    public Batch decode(List<? extends T> images, OnBatchDecodeListener<? super T> listener) {
+        return decode(images, listener, null);
+    }
+
+    /**
+     * 识别一批图片
+     *
+     * @param images           图片
+     * @param listener         回调
+     * @param callbackExecutor 执行回调的线程，为null时在解码线程上回调
+     * @return 用于取消或等待这一批
+     */
+    public Batch decode(List<? extends T> images,
+                        OnBatchDecodeListener<? super T> listener,
+                        Executor callbackExecutor) {
+        Batch batch = new Batch(new ArrayList<T>(images), listener, callbackExecutor);
+        int tasks = Math.min(threadCount, batch.images.size());
+        if (tasks == 0) {
+            batch.finish();
+            return batch;
+        }
+        batch.runningTasks.set(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * 不再接受新的批次，已提交的批次继续识别，需要立即停止时先取消
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private Worker obtainWorker() {
+        Worker worker = idleWorkers.poll();
+        return worker != null ? worker : new Worker(hints, option);
+    }
+
+    private static final class Worker {
+
+        final MultiScaleDecoder decoder;
+        final DecodeBuffers buffers = new DecodeBuffers();
+
+        Worker(Map<DecodeHintType, ?> hints, MultiScaleOption option) {
+            decoder = new MultiScaleDecoder(hints, option);
+        }
+    }
+
+    /**
+     * 一批图片，每个解码线程运行一次，依次领取还没识别的图片
+     */
+    public final class Batch implements Runnable {
+
+        private final List<T> images;
+        private final OnBatchDecodeListener<? super T> listener;
+        private final Executor callbackExecutor;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger runningTasks = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger decoded = new AtomicInteger();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long startNanos = System.nanoTime();
+        private volatile boolean cancelled;
+
+        Batch(List<T> images, OnBatchDecodeListener<? super T> listener, Executor callbackExecutor) {
+            this.images = images;
+            this.listener = listener;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        @Override
+        public void run() {
+            Worker worker = obtainWorker();
+            try {
+                int index;
+                while (!cancelled && (index = nextIndex.getAndIncrement()) < images.size()) {
+                    decodeImage(worker, index);
+                }
+            } finally {
+                idleWorkers.offer(worker);
+                if (runningTasks.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private void decodeImage(Worker worker, final int index) {
+            final T image = images.get(index);
+            long start = System.nanoTime();
+            DecodeResultCache cache = resultCache;
+            String key = null;
+            if (cache != null) {
+                key = getCacheKey(image);
+                DecodeResultCache.Entry entry = key == null ? null : cache.get(key);
+                if (entry != null) {
+                    deliverCached(index, image, entry, System.nanoTime() - start);
+                    return;
+                }
+            }
+            final Result result;
+            LuminanceSource source;
+            long loaded;
+            try {
+                source = loader.load(image, worker.buffers);
+                loaded = System.nanoTime();
+                // A reader can throw on a corrupt or degenerate source; this image fails, the batch goes on
+                result = source == null ? null : worker.decoder.decode(source);
+            } catch (final Exception e) {
+                processed.incrementAndGet();
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onImageFailed(index, image, e);
+                    }
+                });
+                return;
+            }
+            final long loadNanos = loaded - start;
+            final long decodeNanos = System.nanoTime() - loaded;
+            final List<MultiScaleDecoder.Attempt> attempts = source == null
+                    ? Collections.<MultiScaleDecoder.Attempt>emptyList()
+                    : new ArrayList<MultiScaleDecoder.Attempt>(worker.decoder.getAttempts());
+            if (key != null) {
+                cache.put(key, result);
+            }
+            processed.incrementAndGet();
+            if (result != null) {
+                decoded.incrementAndGet();
+            }
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onImageDecoded(index, image, result, loadNanos, decodeNanos, attempts);
+                }
+            });
+        }
+
+        private String getCacheKey(T image) {
+            CacheKeyProvider<? super T> keyProvider = cacheKeyProvider;
+            try {
+                return keyProvider == null ? null : keyProvider.getCacheKey(image);
+            } catch (IOException e) {
+                // Decode it without the cache
+                return null;
+            }
+        }
+
+        /**
+         * 命中缓存时没有识别步骤，耗时计入查询缓存
+         */
+        private void deliverCached(final int index, final T image, DecodeResultCache.Entry entry,
+                                   final long lookupNanos) {
+            final Result result = entry.toResult();
+            processed.incrementAndGet();
+            if (result != null) {
+                decoded.incrementAndGet();
+            }
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onImageDecoded(index, image, result, 0, lookupNanos,
+                            Collections.<MultiScaleDecoder.Attempt>emptyList());
+                }
+            });
+        }
+
+        private void finish() {
+            final int total = processed.get();
+            final int found = decoded.get();
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            done.countDown();
+            deliver(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onBatchFinished(total, found, elapsedNanos);
+                }
+            });
+        }
+
+        private void deliver(final Runnable callback) {
+            if (callbackExecutor == null) {
+                if (!cancelled) {
+                    callback.run();
+                }
+                return;
+            }
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Checked again on the callback thread, e.g. the activity was destroyed meanwhile
+                    if (!cancelled) {
+                        callback.run();
+                    }
+                }
+            });
+        }
+
+        /**
+         * 取消这一批，正在识别的图片识别完后停止，之后不再回调。在执行回调的线程上调用时，取消后不会再收到任何回调
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * 等待这一批结束，取消后等待正在识别的图片结束
+         *
+         * @return 是否在超时前结束
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+    }
+
+}
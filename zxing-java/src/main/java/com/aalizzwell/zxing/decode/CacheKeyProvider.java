@@ -0,0 +1,16 @@
+package com.aalizzwell.zxing.decode;
+
+import java.io.IOException;
+
+/**
+ * 图片在{@link DecodeResultCache}中的key，内容变化时key也必须变化
+ *
+ * @param <T> 图片的标识
+ */
+public interface CacheKeyProvider<T> {
+
+    /**
+     * @return key，无法确定图片身份时返回null，这张图片不使用缓存
+     */
+    String getCacheKey(T image) throws IOException;
+}
@@ -0,0 +1,33 @@
+package com.aalizzwell.zxing.decode;
+
+/**
+ * 解码线程可复用的缓冲区
+ * int数组长度不够时才重新分配；亮度数组会作为{@link com.google.zxing.LuminanceSource#getMatrix()}返回，长度必须正好是宽乘高，
+ * 只在连续的图片尺寸相同时复用。每个工作线程各持有一个，非线程安全。
+ */
+public final class DecodeBuffers {
+
+    private int[] ints;
+    private byte[] bytes;
+
+    /**
+     * @return 长度至少为length的数组，内容未清空
+     */
+    public int[] ints(int length) {
+        if (ints == null || ints.length < length) {
+            ints = new int[length];
+        }
+        return ints;
+    }
+
+    /**
+     * @return 长度正好为length的数组，内容未清空
+     */
+    public byte[] bytes(int length) {
+        if (bytes == null || bytes.length != length) {
+            bytes = new byte[length];
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class DecodeFormatManager {
+
+    public static final Set<BarcodeFormat> PRODUCT_FORMATS;
+    public static final Set<BarcodeFormat> INDUSTRIAL_FORMATS;
+    public static final Set<BarcodeFormat> ONE_D_FORMATS;
+    public static final Map<String, Set<BarcodeFormat>> FORMATS_FOR_MODE;
+    public static final Set<BarcodeFormat> QR_CODE_FORMATS = EnumSet.of(BarcodeFormat.QR_CODE);
+    public static final Set<BarcodeFormat> DATA_MATRIX_FORMATS = EnumSet.of(BarcodeFormat.DATA_MATRIX);
+    public static final Set<BarcodeFormat> AZTEC_FORMATS = EnumSet.of(BarcodeFormat.AZTEC);
+    public static final Set<BarcodeFormat> PDF417_FORMATS = EnumSet.of(BarcodeFormat.PDF_417);
+
+    static {
+        PRODUCT_FORMATS = EnumSet.of(BarcodeFormat.UPC_A,
+                BarcodeFormat.UPC_E,
+                BarcodeFormat.EAN_13,
+                BarcodeFormat.EAN_8,
+                BarcodeFormat.RSS_14,
+                BarcodeFormat.RSS_EXPANDED);
+        INDUSTRIAL_FORMATS = EnumSet.of(BarcodeFormat.CODE_39,
+                BarcodeFormat.CODE_93,
+                BarcodeFormat.CODE_128,
+                BarcodeFormat.ITF,
+                BarcodeFormat.CODABAR);
+        ONE_D_FORMATS = EnumSet.copyOf(PRODUCT_FORMATS);
+        ONE_D_FORMATS.addAll(INDUSTRIAL_FORMATS);
+    }
+
+    static {
+        // Keys are the values of Intents.Scan.*_MODE
+        FORMATS_FOR_MODE = new HashMap<>();
+        FORMATS_FOR_MODE.put("ONE_D_MODE", ONE_D_FORMATS);
+        FORMATS_FOR_MODE.put("PRODUCT_MODE", PRODUCT_FORMATS);
+        FORMATS_FOR_MODE.put("QR_CODE_MODE", QR_CODE_FORMATS);
+        FORMATS_FOR_MODE.put("DATA_MATRIX_MODE", DATA_MATRIX_FORMATS);
+        FORMATS_FOR_MODE.put("AZTEC_MODE", AZTEC_FORMATS);
+        FORMATS_FOR_MODE.put("PDF417_MODE", PDF417_FORMATS);
+    }
+
+    private DecodeFormatManager() {
+    }
+
+    /**
+     * 扫码界面识别的格式：二维码、Data Matrix，以及可选的条形码
+     *
+     * @param decodeBarCode 是否识别条形码
+     */
+    public static Set<BarcodeFormat> getCaptureFormats(boolean decodeBarCode) {
+        Set<BarcodeFormat> formats = EnumSet.noneOf(BarcodeFormat.class);
+        if (decodeBarCode) {
+            formats.addAll(ONE_D_FORMATS);
+        }
+        formats.addAll(QR_CODE_FORMATS);
+        formats.addAll(DATA_MATRIX_FORMATS);
+        return formats;
+    }
+
+    /**
+     * 扫码界面的hints：识别的格式和字符集，定位点回调由调用方添加
+     *
+     * @param decodeBarCode 是否识别条形码
+     */
+    public static Map<DecodeHintType, Object> buildCaptureHints(boolean decodeBarCode) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, getCaptureFormats(decodeBarCode));
+        hints.put(DecodeHintType.CHARACTER_SET, "UTF8");
+        return hints;
+    }
+
+    /**
+     * 识别图片的hints：二维码和Data Matrix，开启TRY_HARDER
+     */
+    public static Map<DecodeHintType, Object> buildImageHints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        Set<BarcodeFormat> decodeFormats = EnumSet.noneOf(BarcodeFormat.class);
+        decodeFormats.addAll(QR_CODE_FORMATS);
+        decodeFormats.addAll(DATA_MATRIX_FORMATS);
+        //QR_CODE使用hard模式编码，速度精度都有明显上升
+        hints.put(DecodeHintType.TRY_HARDER, QR_CODE_FORMATS);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
+        return hints;
+    }
+
+    /**
+     * 从Intent读取格式使用Android模块中的DecodeFormatParser.parseDecodeFormats(Intent)，原先的同名方法已移到那里
+     *
+     * @param scanFormats 格式名称，优先使用
+     * @param decodeMode  Intents.Scan中的模式
+     * @return 识别的格式，都没有指定时返回null
+     */
+    public static Set<BarcodeFormat> parseDecodeFormats(Iterable<String> scanFormats, String decodeMode) {
+        if (scanFormats != null) {
+            Set<BarcodeFormat> formats = EnumSet.noneOf(BarcodeFormat.class);
+            try {
+                for (String format : scanFormats) {
+                    formats.add(BarcodeFormat.valueOf(format));
+                }
+                return formats;
+            } catch (IllegalArgumentException iae) {
+                // ignore it then
+            }
+        }
+        if (decodeMode != null) {
+            return FORMATS_FOR_MODE.get(decodeMode);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,366 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图片识别结果缓存
+ * 以图片的身份（例如Uri加大小加修改时间）为key，内存中保留最近用到的结果，之后是磁盘上只追加写入的记录文件。
+ * 没有识别出码的结果也会记录，但只在一段时间内有效。磁盘读写失败时退化为只用内存，不影响识别。
+ * 记录文件在第一次读写时才打开，可在主线程创建；所有方法线程安全。
+ * <p>
+ * 文件格式（大端）：每条记录为int长度，之后是UTF key、byte是否识别出码、long记录时间（毫秒），识别出码时再跟UTF格式名和
+ * UTF文本。同一个key以最后一条为准，失效记录过多时重写整个文件。
+ */
+public final class DecodeResultCache implements Closeable {
+
+    public static final int DEFAULT_MEMORY_ENTRIES = 256;
+    public static final int DEFAULT_DISK_ENTRIES = 4096;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 10 * 60 * 1000;
+
+    /*失效记录超过有效记录加这个数时重写文件*/
+    private static final int COMPACT_SLACK = 64;
+
+    private final File file;
+    private final long negativeTtlMillis;
+    private final LinkedHashMap<String, Entry> memory;
+    /*key到记录在文件中的偏移*/
+    private final LinkedHashMap<String, Long> index;
+    private RandomAccessFile journal;
+    private boolean opened;
+    private int recordCount;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param file 记录文件，为null时只用内存
+     */
+    public DecodeResultCache(File file) {
+        this(file, DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    /**
+     * @param file              记录文件，为null时只用内存
+     * @param memoryEntries     内存中最多保留的结果数
+     * @param diskEntries       磁盘上最多保留的结果数
+     * @param negativeTtlMillis 没有识别出码的结果的有效期
+     */
+    public DecodeResultCache(File file, final int memoryEntries, final int diskEntries, long negativeTtlMillis) {
+        this.file = file;
+        this.negativeTtlMillis = negativeTtlMillis;
+        memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            // Inside the subclass a bare Entry would resolve to the inherited Map.Entry
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DecodeResultCache.Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        index = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > diskEntries;
+            }
+        };
+    }
+
+    /**
+     * @param uri          图片的Uri或路径
+     * @param size         文件大小
+     * @param lastModified 修改时间
+     */
+    public static String key(String uri, long size, long lastModified) {
+        return uri + '|' + size + '|' + lastModified;
+    }
+
+    /**
+     * @return 缓存的结果，没有缓存或已失效时返回null
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = memory.get(key);
+        if (entry == null) {
+            entry = readDisk(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        if (entry != null && !entry.found && System.currentTimeMillis() - entry.timeMillis > negativeTtlMillis) {
+            memory.remove(key);
+            index.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * @param result 识别结果，没有识别出码时为null
+     */
+    public synchronized void put(String key, Result result) {
+        Entry entry = result == null
+                ? new Entry(false, null, null, System.currentTimeMillis())
+                : new Entry(true, result.getText(), result.getBarcodeFormat(), System.currentTimeMillis());
+        memory.put(key, entry);
+        writeDisk(key, entry);
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeJournal();
+        // Not reopened after close
+        opened = true;
+    }
+
+    private boolean ensureOpen() {
+        if (!opened) {
+            opened = true;
+            if (file != null) {
+                try {
+                    journal = new RandomAccessFile(file, "rw");
+                    loadIndex();
+                } catch (IOException e) {
+                    closeJournal();
+                }
+            }
+        }
+        return journal != null;
+    }
+
+    private void loadIndex() throws IOException {
+        long length = journal.length();
+        long offset = 0;
+        journal.seek(0);
+        while (offset + 4 <= length) {
+            int recordLength = journal.readInt();
+            if (recordLength <= 0 || offset + 4 + recordLength > length) {
+                break;
+            }
+            String key = journal.readUTF();
+            index.remove(key);
+            index.put(key, offset);
+            recordCount++;
+            offset += 4 + recordLength;
+            journal.seek(offset);
+        }
+        if (offset < length) {
+            // Truncated last record, e.g. the process died while writing
+            journal.setLength(offset);
+        }
+    }
+
+    private Entry readDisk(String key) {
+        if (!ensureOpen()) {
+            return null;
+        }
+        Long offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            return readRecord(offset).entry;
+        } catch (IOException e) {
+            closeJournal();
+            return null;
+        }
+    }
+
+    private Record readRecord(long offset) throws IOException {
+        journal.seek(offset);
+        byte[] payload = new byte[journal.readInt()];
+        journal.readFully(payload);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String key = in.readUTF();
+        boolean found = in.readBoolean();
+        long timeMillis = in.readLong();
+        Entry entry;
+        if (found) {
+            BarcodeFormat format;
+            try {
+                format = BarcodeFormat.valueOf(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new EOFException("Unknown format");
+            }
+            entry = new Entry(true, in.readUTF(), format, timeMillis);
+        } else {
+            entry = new Entry(false, null, null, timeMillis);
+        }
+        return new Record(key, entry);
+    }
+
+    private void writeDisk(String key, Entry entry) {
+        if (!ensureOpen()) {
+            return;
+        }
+        byte[] record;
+        try {
+            record = encode(key, entry);
+        } catch (IOException e) {
+            // Only UTFDataFormatException for a key or text longer than writeUTF allows, the stream is in memory.
+            // Keep this result in memory only; an already expired miss hides any older record of the key on disk
+            try {
+                record = encode(key, new Entry(false, null, null, 0));
+            } catch (IOException tooLong) {
+                // The key itself is too long, so it was never written
+                return;
+            }
+        }
+        try {
+            long offset = journal.length();
+            journal.seek(offset);
+            journal.write(record);
+            index.remove(key);
+            index.put(key, offset);
+            recordCount++;
+            if (recordCount > index.size() * 2 + COMPACT_SLACK) {
+                compact();
+            }
+        } catch (IOException e) {
+            closeJournal();
+        }
+    }
+
+    /**
+     * @throws UTFDataFormatException key或文本编码后超过64KB
+     */
+    private static byte[] encode(String key, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeUTF(key);
+        out.writeBoolean(entry.found);
+        out.writeLong(entry.timeMillis);
+        if (entry.found) {
+            out.writeUTF(entry.format.name());
+            out.writeUTF(entry.text);
+        }
+        out.flush();
+        byte[] record = bytes.toByteArray();
+        int length = record.length - 4;
+        record[0] = (byte) (length >>> 24);
+        record[1] = (byte) (length >>> 16);
+        record[2] = (byte) (length >>> 8);
+        record[3] = (byte) length;
+        return record;
+    }
+
+    /**
+     * 只保留有效记录，写入临时文件后替换
+     */
+    private void compact() throws IOException {
+        List<Record> live = new ArrayList<Record>(index.size());
+        for (Long offset : index.values()) {
+            live.add(readRecord(offset));
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        RandomAccessFile out = new RandomAccessFile(temp, "rw");
+        LinkedHashMap<String, Long> offsets = new LinkedHashMap<String, Long>();
+        try {
+            out.setLength(0);
+            for (Record record : live) {
+                offsets.put(record.key, out.getFilePointer());
+                out.write(encode(record.key, record.entry));
+            }
+        } finally {
+            out.close();
+        }
+        journal.close();
+        journal = null;
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+        journal = new RandomAccessFile(file, "rw");
+        index.clear();
+        index.putAll(offsets);
+        recordCount = offsets.size();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            journal = null;
+        }
+        index.clear();
+    }
+
+    private static final class Record {
+
+        final String key;
+        final Entry entry;
+
+        Record(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * 一条缓存的结果
+     */
+    public static final class Entry {
+
+        private final boolean found;
+        private final String text;
+        private final BarcodeFormat format;
+        private final long timeMillis;
+
+        Entry(boolean found, String text, BarcodeFormat format, long timeMillis) {
+            this.found = found;
+            this.text = text;
+            this.format = format;
+            this.timeMillis = timeMillis;
+        }
+
+        /**
+         * @return 是否识别出码
+         */
+        public boolean isFound() {
+            return found;
+        }
+
+        /**
+         * @return 只含文本和格式的识别结果，没有识别出码时为null
+         */
+        public Result toResult() {
+            return found ? new Result(text, null, null, format) : null;
+        }
+
+        /**
+         * @return 记录时间（毫秒）
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+    }
+
+}
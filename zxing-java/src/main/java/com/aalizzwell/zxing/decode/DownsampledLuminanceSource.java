@@ -0,0 +1,106 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import java.util.Arrays;
+
+/**
+ * 缩小后的LuminanceSource
+ * 每factor * factor个像素取平均值（盒式滤波）合成一个像素，用于先在低分辨率上快速识别大尺寸的码
+ */
+public final class DownsampledLuminanceSource extends LuminanceSource {
+
+    private final byte[] pixels;
+
+    /**
+     * @param luminances  原始亮度数据，每个像素一个字节
+     * @param dataWidth   原始宽度
+     * @param dataHeight  原始高度
+     * @param factor      缩小倍数，必须是2的幂
+     * @param reuseBuffer 上一帧的缓冲区，长度刚好合适时复用，可为null
+     */
+    public DownsampledLuminanceSource(byte[] luminances,
+                                      int dataWidth,
+                                      int dataHeight,
+                                      int factor,
+                                      byte[] reuseBuffer) {
+        this(luminances, dataWidth, dataHeight, factor, reuseBuffer, null);
+    }
+
+    /**
+     * @param rowSums 累加一行用的临时数组，长度不小于缩小后的宽度时复用，可为null；调用方可以每帧都传同一个
+     */
+    public DownsampledLuminanceSource(byte[] luminances,
+                                      int dataWidth,
+                                      int dataHeight,
+                                      int factor,
+                                      byte[] reuseBuffer,
+                                      int[] rowSums) {
+        super(dataWidth / factor, dataHeight / factor);
+        if (factor < 1 || Integer.bitCount(factor) != 1) {
+            throw new IllegalArgumentException("Bad downsample factor: " + factor);
+        }
+        int width = getWidth();
+        int height = getHeight();
+        int area = width * height;
+        pixels = reuseBuffer != null && reuseBuffer.length == area ? reuseBuffer : new byte[area];
+
+        int shift = Integer.numberOfTrailingZeros(factor) * 2;
+        int[] sums = rowSums != null && rowSums.length >= width ? rowSums : new int[width];
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(sums, 0, width, 0);
+            int inputRow = y * factor * dataWidth;
+            for (int k = 0; k < factor; k++, inputRow += dataWidth) {
+                int inputOffset = inputRow;
+                for (int x = 0; x < width; x++) {
+                    int sum = 0;
+                    for (int i = 0; i < factor; i++) {
+                        sum += luminances[inputOffset++] & 0xff;
+                    }
+                    sums[x] += sum;
+                }
+            }
+            int outputOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                pixels[outputOffset + x] = (byte) (sums[x] >> shift);
+            }
+        }
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        System.arraycopy(pixels, y * width, row, 0, width);
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        return pixels;
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        return new PlanarYUVLuminanceSource(pixels, getWidth(), getHeight(), left, top, width, height, false);
+    }
+
+    /**
+     * @return 缩小后的亮度数据，可作为下一帧的reuseBuffer
+     */
+    public byte[] getBuffer() {
+        return pixels;
+    }
+
+}
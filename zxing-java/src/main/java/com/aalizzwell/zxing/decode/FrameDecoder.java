@@ -0,0 +1,213 @@
+package com.aalizzwell.zxing.decode;
+
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.aalizzwell.zxing.frame.FrameSource;
+import com.aalizzwell.zxing.metrics.ScanMetrics;
+import com.aalizzwell.zxing.metrics.StageClock;
+import com.aalizzwell.zxing.metrics.TimedBinarizer;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单帧解码流程
+ * 从{@link FrameSource}取扫描区域（或跟踪到的区域）的亮度数据，归还帧后依次经过质量过滤、格式调度和金字塔解码。
+ * 不依赖Android，相机预览和录制文件的回放走的是同一套流程。
+ * 每个解码线程各持有一个，非线程安全；格式调度、区域跟踪、质量过滤和统计可由多个实例共用。
+ */
+public final class FrameDecoder {
+
+    private final FrameSource frameSource;
+    private final Map<DecodeHintType, Object> hints;
+    private final MultiFormatReader multiFormatReader;
+    /*只识别单一格式的reader，按需创建*/
+    private final Map<BarcodeFormat, MultiFormatReader> singleFormatReaders =
+            new EnumMap<BarcodeFormat, MultiFormatReader>(BarcodeFormat.class);
+    private final AdaptiveFormatScheduler formatScheduler;
+    /*识别区域跟踪，未开启时为null*/
+    private final RoiTracker roiTracker;
+    private final RoiTracker.FramePoints framePoints;
+    private final int[] region = new int[4];
+    /*帧质量过滤，未开启时为null*/
+    private final FrameQualityGate qualityGate;
+    /*金字塔解码，未开启时为null*/
+    private final PyramidDecoder pyramidDecoder;
+    private final ScanMetrics scanMetrics;
+    /*累计reader内部的二值化耗时*/
+    private final StageClock stageClock = new StageClock();
+    /*复用的亮度数据缓冲区，扫描框大小不变时每帧不再分配*/
+    private byte[] luminanceBuffer;
+
+    /**
+     * @param frameSource     帧来源，提供扫描区域并回收帧
+     * @param hints           reader的hints
+     * @param formatScheduler 自适应格式调度，为null时每帧都识别全部格式
+     * @param roiTracker      识别区域跟踪，为null时每帧都识别整个扫描区域
+     * @param qualityGate     帧质量过滤，为null时每帧都识别
+     * @param pyramidDecode   是否金字塔解码
+     * @param scanMetrics     统计
+     */
+    public FrameDecoder(FrameSource frameSource,
+                        Map<DecodeHintType, ?> hints,
+                        AdaptiveFormatScheduler formatScheduler,
+                        RoiTracker roiTracker,
+                        FrameQualityGate qualityGate,
+                        boolean pyramidDecode,
+                        ScanMetrics scanMetrics) {
+        Map<DecodeHintType, Object> theHints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+        theHints.putAll(hints);
+        this.frameSource = frameSource;
+        this.roiTracker = roiTracker;
+        this.qualityGate = qualityGate;
+        if (roiTracker != null) {
+            framePoints = new RoiTracker.FramePoints((ResultPointCallback) theHints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK));
+            theHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, framePoints);
+        } else {
+            framePoints = null;
+        }
+        if (pyramidDecode) {
+            pyramidDecoder = new PyramidDecoder((ResultPointCallback) theHints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK),
+                    stageClock);
+            theHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, pyramidDecoder.getPointCallback());
+        } else {
+            pyramidDecoder = null;
+        }
+        this.hints = theHints;
+        multiFormatReader = new MultiFormatReader();
+        multiFormatReader.setHints(theHints);
+        this.formatScheduler = formatScheduler;
+        this.scanMetrics = scanMetrics;
+    }
+
+    private MultiFormatReader getReader(BarcodeFormat format) {
+        if (format == null) {
+            return multiFormatReader;
+        }
+        MultiFormatReader reader = singleFormatReaders.get(format);
+        if (reader == null) {
+            Map<DecodeHintType, Object> singleHints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+            singleHints.putAll(hints);
+            singleHints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(format));
+            reader = new MultiFormatReader();
+            reader.setHints(singleHints);
+            singleFormatReaders.put(format, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * 解码一帧，帧在取出亮度数据后立即通过{@link FrameSource#releaseFrame(byte[])}归还
+     *
+     * @param data   预览帧
+     * @param width  预览帧宽度
+     * @param height 预览帧高度
+     * @return 识别结果，坐标相对于本帧亮度数据；失败为null
+     */
+    public Result decode(byte[] data, int width, int height) {
+        return decode(data, width, height, null, 0);
+    }
+
+    /**
+     * 同{@link #decode(byte[], int, int)}，但批次改变后（例如其他线程已经识别成功）在下一个检查点放弃：
+     * 开始识别之前、金字塔各层之间以及按原分辨率识别区域之前
+     *
+     * @param activeGeneration 当前的解码批次，为null时不检查
+     * @param generation       这一帧所属的批次
+     */
+    public Result decode(byte[] data, int width, int height, AtomicInteger activeGeneration, int generation) {
+        long start = System.nanoTime();
+        long cpuStart = scanMetrics.threadCpuTimeNanos();
+        Result rawResult = null;
+        RotatedCropLuminanceSource source = null;
+        try {
+            FrameGeometry geometry = frameSource.getFrameGeometry(data, width, height);
+            if (geometry != null) {
+                boolean tracked = roiTracker != null && roiTracker.getRegion(region);
+                source = geometry.buildLuminanceSource(data, width, height, tracked ? region : null, luminanceBuffer);
+            }
+        } finally {
+            // The scanning area has been copied out of the frame; let the source fill it again
+            frameSource.releaseFrame(data);
+        }
+        long sourceBuilt = System.nanoTime();
+        scanMetrics.recordStage(ScanMetrics.Stage.BUILD_SOURCE, sourceBuilt - start);
+        if (source != null) {
+            luminanceBuffer = source.getBuffer();
+            if (qualityGate != null) {
+                boolean accepted = qualityGate.accept(source);
+                scanMetrics.recordStage(ScanMetrics.Stage.QUALITY_GATE, System.nanoTime() - sourceBuilt);
+                if (!accepted) {
+                    // Blurred or flat, not worth binarizing; still counted in the total so the gate's cost shows up
+                    scanMetrics.recordStage(ScanMetrics.Stage.TOTAL, System.nanoTime() - start);
+                    scanMetrics.onFrameRejected(cpuStart < 0 ? -1 : scanMetrics.threadCpuTimeNanos() - cpuStart);
+                    return null;
+                }
+            }
+            if (PyramidDecoder.isCancelled(activeGeneration, generation)) {
+                // Another worker already found the code
+                return finish(start, cpuStart, null);
+            }
+            if (framePoints != null) {
+                framePoints.begin(source.getLeft(), source.getTop());
+            }
+            BarcodeFormat attempted = formatScheduler == null ? null : formatScheduler.nextFormat();
+            MultiFormatReader reader = getReader(attempted);
+            long attemptStart = System.nanoTime();
+            if (pyramidDecoder != null) {
+                rawResult = pyramidDecoder.decode(reader, source, activeGeneration, generation);
+            } else {
+                BinaryBitmap bitmap = new BinaryBitmap(new TimedBinarizer(new HybridBinarizer(source), stageClock));
+                try {
+                    rawResult = reader.decodeWithState(bitmap);
+                } catch (ReaderException re) {
+                    // continue
+                } finally {
+                    reader.reset();
+                }
+            }
+            long attemptNanos = System.nanoTime() - attemptStart;
+            long binarizeNanos = stageClock.takeBinarizeNanos();
+            scanMetrics.recordStage(ScanMetrics.Stage.BINARIZE, binarizeNanos);
+            scanMetrics.recordReader(attempted, attemptNanos - binarizeNanos);
+            if (rawResult == null && PyramidDecoder.isCancelled(activeGeneration, generation)) {
+                // An abandoned attempt says nothing about the format or the region
+                return finish(start, cpuStart, null);
+            }
+            if (formatScheduler != null) {
+                formatScheduler.record(attempted, rawResult == null ? null : rawResult.getBarcodeFormat(), attemptNanos);
+            }
+            if (roiTracker != null) {
+                if (rawResult != null) {
+                    framePoints.addResult(rawResult);
+                }
+                roiTracker.update(framePoints, rawResult != null);
+            }
+        }
+        return finish(start, cpuStart, rawResult);
+    }
+
+    private Result finish(long start, long cpuStart, Result rawResult) {
+        scanMetrics.recordStage(ScanMetrics.Stage.TOTAL, System.nanoTime() - start);
+        scanMetrics.onFrameDecoded(rawResult != null,
+                cpuStart < 0 ? -1 : scanMetrics.threadCpuTimeNanos() - cpuStart);
+        return rawResult;
+    }
+
+    /**
+     * @return 上一次识别成功时所在金字塔层的缩小倍数，1表示原分辨率
+     */
+    public int getLastScale() {
+        return pyramidDecoder == null ? 1 : pyramidDecoder.getLastScale();
+    }
+
+}
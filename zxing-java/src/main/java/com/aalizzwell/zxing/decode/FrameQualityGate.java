@@ -0,0 +1,181 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.LuminanceSource;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 帧质量过滤
+ * 解码前在稀疏采样的亮度数据上计算清晰度（边缘处的平均梯度能量）和对比度（亮度分布宽度），对焦中、晃动或曝光不足的帧直接丢弃，
+ * 不再经过二值化和各个reader。
+ * 清晰度和对比度的阈值都随最近帧的滑动平均自适应，连续丢弃过多时放行一帧，避免整个场景都偏模糊时完全不识别。
+ * 所有解码线程共用一个实例。
+ */
+public final class FrameQualityGate {
+
+    /*每个方向大约采样这么多个点*/
+    private static final int SAMPLES_PER_SIDE = 96;
+    /*明暗分布宽度（0.1%到99.9%分位）低于该值时无法二值化，与HybridBinarizer的最小动态范围一致；
+    分位取得较宽，码只占画面一小部分时也不会被当作低对比度*/
+    private static final int MIN_SPREAD = 24;
+    /*分布宽度低于滑动平均的这个比例时丢弃，例如突然欠曝或被遮挡*/
+    private static final float SPREAD_RATIO = 0.5f;
+    /*梯度平方超过该值的采样点算作边缘*/
+    private static final int EDGE_ENERGY = 64;
+    /*清晰度低于滑动平均的这个比例时丢弃*/
+    private static final float SHARPNESS_RATIO = 0.6f;
+    /*滑动平均的权重*/
+    private static final float EWMA_ALPHA = 0.125f;
+    /*连续丢弃这么多帧后放行一帧*/
+    private static final int MAX_CONSECUTIVE_REJECTS = 4;
+
+    private float averageEnergy = -1;
+    private float averageSpread = -1;
+    private int consecutiveRejects;
+
+    /*每个解码线程复用自己的直方图*/
+    private final ThreadLocal<int[]> histograms = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[64];
+        }
+    };
+
+    private final AtomicLong framesEvaluated = new AtomicLong();
+    private final AtomicLong rejectedBlurred = new AtomicLong();
+    private final AtomicLong rejectedLowContrast = new AtomicLong();
+    private final AtomicLong evaluateNanos = new AtomicLong();
+
+    /**
+     * @param source 待识别的亮度数据
+     * @return 是否值得识别
+     */
+    public boolean accept(LuminanceSource source) {
+        long start = System.nanoTime();
+        byte[] pixels = source.getMatrix();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int stepX = Math.max(1, width / SAMPLES_PER_SIDE);
+        int stepY = Math.max(1, height / SAMPLES_PER_SIDE);
+
+        int[] histogram = histograms.get();
+        Arrays.fill(histogram, 0);
+        long energy = 0;
+        int edges = 0;
+        int samples = 0;
+        for (int y = 0; y < height - 1; y += stepY) {
+            int offset = y * width;
+            for (int x = 0; x < width - 1; x += stepX) {
+                int p = pixels[offset + x] & 0xff;
+                // Neighbouring pixels, not neighbouring samples, so fine detail still counts
+                int dx = (pixels[offset + x + 1] & 0xff) - p;
+                int dy = (pixels[offset + width + x] & 0xff) - p;
+                int gradient = dx * dx + dy * dy;
+                if (gradient > EDGE_ENERGY) {
+                    energy += gradient;
+                    edges++;
+                }
+                histogram[p >> 2]++;
+                samples++;
+            }
+        }
+        int frameSpread = samples == 0 ? 0 : spread(histogram, samples);
+        // Averaged over edges only, so a crop that is mostly code and a frame that is mostly background compare fairly
+        float frameEnergy = edges == 0 ? 0 : (float) energy / edges;
+        boolean accepted;
+        synchronized (this) {
+            boolean lowContrast = frameSpread < MIN_SPREAD
+                    || (averageSpread > 0 && frameSpread < averageSpread * SPREAD_RATIO);
+            averageSpread = averageSpread < 0 ? frameSpread : averageSpread + (frameSpread - averageSpread) * EWMA_ALPHA;
+            boolean blurred = frameEnergy == 0
+                    || (averageEnergy > 0 && frameEnergy < averageEnergy * SHARPNESS_RATIO);
+            averageEnergy = averageEnergy < 0 ? frameEnergy : averageEnergy + (frameEnergy - averageEnergy) * EWMA_ALPHA;
+            accepted = !(lowContrast || blurred) || consecutiveRejects >= MAX_CONSECUTIVE_REJECTS;
+            consecutiveRejects = accepted ? 0 : consecutiveRejects + 1;
+            if (!accepted) {
+                if (lowContrast) {
+                    rejectedLowContrast.incrementAndGet();
+                } else {
+                    rejectedBlurred.incrementAndGet();
+                }
+            }
+        }
+        framesEvaluated.incrementAndGet();
+        evaluateNanos.addAndGet(System.nanoTime() - start);
+        return accepted;
+    }
+
+    /**
+     * @return 0.1%到99.9%分位之间的亮度差
+     */
+    private static int spread(int[] histogram, int samples) {
+        int lowCount = samples / 1000;
+        int highCount = samples - lowCount;
+        int low = -1;
+        int high = histogram.length - 1;
+        int count = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            count += histogram[i];
+            if (low < 0 && count > lowCount) {
+                low = i;
+            }
+            if (count >= highCount) {
+                high = i;
+                break;
+            }
+        }
+        return (high - Math.max(0, low)) << 2;
+    }
+
+    public long getFramesEvaluated() {
+        return framesEvaluated.get();
+    }
+
+    /**
+     * @return 因清晰度不足丢弃的帧数
+     */
+    public long getRejectedBlurred() {
+        return rejectedBlurred.get();
+    }
+
+    /**
+     * @return 因对比度不足丢弃的帧数
+     */
+    public long getRejectedLowContrast() {
+        return rejectedLowContrast.get();
+    }
+
+    /**
+     * @return 平均每帧评估耗时
+     */
+    public long getAverageEvaluateNanos() {
+        long frames = framesEvaluated.get();
+        return frames == 0 ? 0 : evaluateNanos.get() / frames;
+    }
+
+    /**
+     * @return 当前的清晰度滑动平均值，按设备调整阈值时参考
+     */
+    public synchronized float getAverageEnergy() {
+        return averageEnergy;
+    }
+
+    /**
+     * @return 当前的对比度（亮度分布宽度）滑动平均值
+     */
+    public synchronized float getAverageSpread() {
+        return averageSpread;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameQualityGate{evaluated=" + getFramesEvaluated()
+                + ", blurred=" + getRejectedBlurred()
+                + ", lowContrast=" + getRejectedLowContrast()
+                + ", avgNanos=" + getAverageEvaluateNanos()
+                + ", avgEnergy=" + getAverageEnergy()
+                + ", avgSpread=" + getAverageSpread() + '}';
+    }
+
+}
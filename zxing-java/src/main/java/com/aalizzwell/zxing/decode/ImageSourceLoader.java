@@ -0,0 +1,21 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.LuminanceSource;
+
+import java.io.IOException;
+
+/**
+ * 把一张图片读取为亮度数据，供{@link BatchImageDecoder}使用
+ * 在解码线程上调用，可能被多个线程同时调用。
+ *
+ * @param <T> 图片的标识，例如Uri、文件路径
+ */
+public interface ImageSourceLoader<T> {
+
+    /**
+     * @param image   图片
+     * @param buffers 当前解码线程的缓冲区，返回的亮度数据可以直接引用其中的数组，这张图片识别结束前不会被其他图片使用
+     * @return 亮度数据，不是图片时返回null
+     */
+    LuminanceSource load(T image, DecodeBuffers buffers) throws IOException;
+}
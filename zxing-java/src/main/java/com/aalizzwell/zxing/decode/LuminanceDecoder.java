@@ -0,0 +1,50 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Map;
+
+/**
+ * 图片解码
+ * 二维码识别算法主要有两种，分别是HybridBinarizer和GlobalHistogramBinarizer，先用前者识别，失败后再用后者识别一次。
+ * 内部持有reader，可重复使用，非线程安全。
+ */
+public final class LuminanceDecoder {
+
+    private final MultiFormatReader reader = new MultiFormatReader();
+
+    /**
+     * @param hints reader的hints，见{@link DecodeFormatManager#buildImageHints()}
+     */
+    public LuminanceDecoder(Map<DecodeHintType, ?> hints) {
+        reader.setHints(hints);
+    }
+
+    /**
+     * @return 识别结果，失败为null
+     */
+    public Result decode(LuminanceSource source) {
+        try {
+            return reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source)));
+        } catch (ReaderException e) {
+            // try the global histogram next
+        } finally {
+            reader.reset();
+        }
+        try {
+            return reader.decodeWithState(new BinaryBitmap(new GlobalHistogramBinarizer(source)));
+        } catch (ReaderException e) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+}
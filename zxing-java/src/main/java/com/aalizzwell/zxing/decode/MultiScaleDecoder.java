@@ -0,0 +1,218 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图片多尺度识别
+ * 先把图片缩小到短边接近{@link MultiScaleOption#getStartSize()}识别，大而清晰的码在这一步就能识别出来；失败后分辨率
+ * 逐级加倍直到原图，再依次换用GlobalHistogramBinarizer、按原分辨率分块识别，用于大照片中的小码。
+ * 识别成功或超出时间上限时停止，每一步的尺度、区域、二值化方式和耗时通过{@link #getAttempts()}取得。
+ * 每个解码线程各持有一个，非线程安全。
+ */
+public final class MultiScaleDecoder {
+
+    public static final String HYBRID = "hybrid";
+    public static final String GLOBAL_HISTOGRAM = "globalHistogram";
+
+    /*分块识别时，每块占图片宽高的比例，相邻块重叠一半*/
+    private static final int REGION_DIVISOR = 2;
+
+    private final MultiFormatReader reader = new MultiFormatReader();
+    private final MultiScaleOption option;
+    private final List<Attempt> attempts = new ArrayList<Attempt>();
+    private byte[] levelBuffer;
+    private int[] rowSums = new int[0];
+
+    /**
+     * @param hints  reader的hints，见{@link DecodeFormatManager#buildImageHints()}
+     * @param option 配置项，每次识别时读取
+     */
+    public MultiScaleDecoder(Map<DecodeHintType, ?> hints, MultiScaleOption option) {
+        reader.setHints(hints);
+        this.option = option;
+    }
+
+    /**
+     * @param source 原分辨率的亮度数据
+     * @return 识别结果，坐标为原分辨率坐标；失败为null
+     */
+    public Result decode(LuminanceSource source) {
+        attempts.clear();
+        long deadline = System.nanoTime() + option.getTimeBudgetMillis() * 1000000L;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        byte[] matrix = source.getMatrix();
+
+        int factor = 1;
+        while (Math.min(width, height) / (factor * 2) >= option.getStartSize()) {
+            factor *= 2;
+        }
+        for (; factor >= 1; factor /= 2) {
+            if (!attempts.isEmpty() && System.nanoTime() > deadline) {
+                return null;
+            }
+            LuminanceSource level = source;
+            if (factor > 1) {
+                if (rowSums.length < width / factor) {
+                    rowSums = new int[width / factor];
+                }
+                DownsampledLuminanceSource downsampled =
+                        new DownsampledLuminanceSource(matrix, width, height, factor, levelBuffer, rowSums);
+                levelBuffer = downsampled.getBuffer();
+                level = downsampled;
+            }
+            Result result = attempt(level, factor, 0, 0, HYBRID);
+            if (result != null) {
+                return PyramidDecoder.transform(result, factor, 0, 0);
+            }
+        }
+
+        if (option.isTryGlobalHistogram()) {
+            if (System.nanoTime() > deadline) {
+                return null;
+            }
+            Result result = attempt(source, 1, 0, 0, GLOBAL_HISTOGRAM);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        if (option.isTryRegions()) {
+            int regionWidth = width / REGION_DIVISOR;
+            int regionHeight = height / REGION_DIVISOR;
+            if (regionWidth == 0 || regionHeight == 0) {
+                return null;
+            }
+            int[] lefts = {(width - regionWidth) / 2, 0, width - regionWidth};
+            int[] tops = {(height - regionHeight) / 2, 0, height - regionHeight};
+            // Centre first, where people usually frame the code; then the rest of the overlapping grid
+            for (int top : tops) {
+                for (int left : lefts) {
+                    if (System.nanoTime() > deadline) {
+                        return null;
+                    }
+                    LuminanceSource region = new PlanarYUVLuminanceSource(matrix, width, height,
+                            left, top, regionWidth, regionHeight, false);
+                    Result result = attempt(region, 1, left, top, HYBRID);
+                    if (result != null) {
+                        return PyramidDecoder.transform(result, 1, left, top);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Result attempt(LuminanceSource source, int scale, int left, int top, String binarizer) {
+        long start = System.nanoTime();
+        Binarizer theBinarizer = HYBRID.equals(binarizer)
+                ? new HybridBinarizer(source)
+                : new GlobalHistogramBinarizer(source);
+        Result result;
+        try {
+            result = reader.decodeWithState(new BinaryBitmap(theBinarizer));
+        } catch (ReaderException re) {
+            result = null;
+        } finally {
+            reader.reset();
+        }
+        attempts.add(new Attempt(scale, left, top, source.getWidth() * scale, source.getHeight() * scale,
+                binarizer, System.nanoTime() - start, result != null));
+        return result;
+    }
+
+    /**
+     * @return 上一次识别依次尝试的步骤
+     */
+    public List<Attempt> getAttempts() {
+        return Collections.unmodifiableList(attempts);
+    }
+
+    /**
+     * 识别的一步
+     */
+    public static final class Attempt {
+
+        private final int scale;
+        private final int left;
+        private final int top;
+        private final int width;
+        private final int height;
+        private final String binarizer;
+        private final long nanos;
+        private final boolean found;
+
+        Attempt(int scale, int left, int top, int width, int height, String binarizer, long nanos, boolean found) {
+            this.scale = scale;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+            this.binarizer = binarizer;
+            this.nanos = nanos;
+            this.found = found;
+        }
+
+        /**
+         * @return 缩小倍数，1表示原分辨率
+         */
+        public int getScale() {
+            return scale;
+        }
+
+        /**
+         * @return 识别区域左边界，原分辨率坐标
+         */
+        public int getLeft() {
+            return left;
+        }
+
+        public int getTop() {
+            return top;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return {@link #HYBRID}或{@link #GLOBAL_HISTOGRAM}
+         */
+        public String getBinarizer() {
+            return binarizer;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public boolean isFound() {
+            return found;
+        }
+
+        @Override
+        public String toString() {
+            return "1/" + scale + ' ' + width + 'x' + height + '@' + left + ',' + top + ' ' + binarizer + ' '
+                    + nanos / 1000 + "us" + (found ? " found" : "");
+        }
+    }
+
+}
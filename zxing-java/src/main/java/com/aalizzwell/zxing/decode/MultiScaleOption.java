@@ -0,0 +1,51 @@
+package com.aalizzwell.zxing.decode;
+
+/**
+ * 图片多尺度识别的配置项，见{@link MultiScaleDecoder}
+ */
+public class MultiScaleOption {
+    //一张图片的识别时间上限（毫秒），超过后不再尝试下一步，第一步总会执行
+    private long timeBudgetMillis = 500;
+    //第一步缩小到短边不小于这个尺寸
+    private int startSize = 400;
+    //原分辨率仍识别失败时，用GlobalHistogramBinarizer再识别一次
+    private boolean tryGlobalHistogram = true;
+    //最后按原分辨率分块识别，用于大图中的小码
+    private boolean tryRegions = true;
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public MultiScaleOption setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    public int getStartSize() {
+        return startSize;
+    }
+
+    public MultiScaleOption setStartSize(int startSize) {
+        this.startSize = startSize;
+        return this;
+    }
+
+    public boolean isTryGlobalHistogram() {
+        return tryGlobalHistogram;
+    }
+
+    public MultiScaleOption setTryGlobalHistogram(boolean tryGlobalHistogram) {
+        this.tryGlobalHistogram = tryGlobalHistogram;
+        return this;
+    }
+
+    public boolean isTryRegions() {
+        return tryRegions;
+    }
+
+    public MultiScaleOption setTryRegions(boolean tryRegions) {
+        this.tryRegions = tryRegions;
+        return this;
+    }
+}
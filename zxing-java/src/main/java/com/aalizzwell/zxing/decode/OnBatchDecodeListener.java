@@ -0,0 +1,35 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.Result;
+
+import java.util.List;
+
+/**
+ * 批量识别图片的回调，每张图片识别结束后立即回调，顺序与图片在列表中的顺序无关
+ *
+ * @param <T> 图片的标识
+ */
+public interface OnBatchDecodeListener<T> {
+
+    /**
+     * @param index       图片在列表中的下标
+     * @param result      识别结果，没有码时为null
+     * @param loadNanos   读取图片的耗时
+     * @param decodeNanos 识别的耗时
+     * @param attempts    依次尝试的识别步骤
+     */
+    void onImageDecoded(int index, T image, Result result, long loadNanos, long decodeNanos,
+                        List<MultiScaleDecoder.Attempt> attempts);
+
+    /**
+     * 图片读取失败，或识别时抛出异常
+     */
+    void onImageFailed(int index, T image, Exception error);
+
+    /**
+     * @param total        处理的图片数
+     * @param decoded      识别出码的图片数
+     * @param elapsedNanos 整批的耗时
+     */
+    void onBatchFinished(int total, int decoded, long elapsedNanos);
+}
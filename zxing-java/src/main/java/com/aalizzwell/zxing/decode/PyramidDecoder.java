@@ -0,0 +1,294 @@
+package com.aalizzwell.zxing.decode;
+
+import com.aalizzwell.zxing.metrics.StageClock;
+import com.aalizzwell.zxing.metrics.TimedBinarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 金字塔解码
+ * 高分辨率预览帧先缩小2倍或4倍识别，大尺寸的码在这一层就能识别出来；识别失败时，只对缩小图上出现过定位点，
+ * 或条纹密集的区域按原分辨率再识别一次，不再对整帧做二值化。
+ * 每个解码线程各持有一个，非线程安全。
+ */
+final class PyramidDecoder {
+
+    /*缩小后短边不小于这个尺寸，否则直接按原分辨率识别*/
+    private static final int MIN_LEVEL_SIZE = 240;
+    /*统计条纹密度的网格大小，缩小图上的像素*/
+    private static final int TILE_SIZE = 16;
+    /*相邻像素亮度差超过该值算一次明暗跳变*/
+    private static final int EDGE_THRESHOLD = 24;
+    /*跳变占采样点的比例超过该值才算条纹密集*/
+    private static final float MIN_TILE_DENSITY = 0.12f;
+
+    private final PointCollector pointCollector;
+    private final StageClock stageClock;
+    private byte[] downsampleBuffer;
+    private int[] rowSums = new int[0];
+    private int[] tileEdges = new int[0];
+    private int lastScale = 1;
+
+    /**
+     * @param delegate   原始的定位点回调，收到的点已换算为原分辨率坐标，可为null
+     * @param stageClock 累计二值化耗时
+     */
+    PyramidDecoder(ResultPointCallback delegate, StageClock stageClock) {
+        pointCollector = new PointCollector(delegate);
+        this.stageClock = stageClock;
+    }
+
+    /**
+     * @return 需要放进reader hints的定位点回调
+     */
+    ResultPointCallback getPointCallback() {
+        return pointCollector;
+    }
+
+    /**
+     * @return 上一次识别成功时所在层的缩小倍数，1表示原分辨率
+     */
+    int getLastScale() {
+        return lastScale;
+    }
+
+    /**
+     * @param reader           reader，hints中的定位点回调必须是{@link #getPointCallback()}
+     * @param source           原分辨率的亮度数据
+     * @param activeGeneration 当前的解码批次，改变后不再识别下一层，为null时不检查
+     * @param generation       这一帧所属的批次
+     * @return 识别结果，坐标换算为原分辨率；失败或放弃时为null
+     */
+    Result decode(MultiFormatReader reader, LuminanceSource source, AtomicInteger activeGeneration, int generation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int factor = chooseFactor(width, height);
+        if (factor == 1) {
+            pointCollector.reset(1, 0, 0);
+            lastScale = 1;
+            return decodeLevel(reader, source);
+        }
+
+        if (rowSums.length < width / factor) {
+            rowSums = new int[width / factor];
+        }
+        DownsampledLuminanceSource downsampled =
+                new DownsampledLuminanceSource(source.getMatrix(), width, height, factor, downsampleBuffer, rowSums);
+        downsampleBuffer = downsampled.getBuffer();
+        pointCollector.reset(factor, 0, 0);
+        Result result = decodeLevel(reader, downsampled);
+        if (result != null) {
+            lastScale = factor;
+            return transform(result, factor, 0, 0);
+        }
+
+        if (isCancelled(activeGeneration, generation)) {
+            return null;
+        }
+        // Fall back to full resolution, but only where something looked like a code
+        int[] region = pointCollector.hasPoints()
+                ? pointRegion(width, height)
+                : denseRegion(downsampled, factor, width, height);
+        if (region == null) {
+            return null;
+        }
+        int left = region[0];
+        int top = region[1];
+        pointCollector.reset(1, left, top);
+        result = decodeLevel(reader, source.crop(left, top, region[2] - left, region[3] - top));
+        if (result != null) {
+            lastScale = 1;
+            return transform(result, 1, left, top);
+        }
+        return null;
+    }
+
+    /**
+     * @return 批次是否已经改变，这一帧的结果不再需要
+     */
+    static boolean isCancelled(AtomicInteger activeGeneration, int generation) {
+        return activeGeneration != null && activeGeneration.get() != generation;
+    }
+
+    private static int chooseFactor(int width, int height) {
+        int shortSide = Math.min(width, height);
+        if (shortSide / 4 >= MIN_LEVEL_SIZE) {
+            return 4;
+        }
+        if (shortSide / 2 >= MIN_LEVEL_SIZE) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private Result decodeLevel(MultiFormatReader reader, LuminanceSource source) {
+        try {
+            return reader.decodeWithState(new BinaryBitmap(new TimedBinarizer(new HybridBinarizer(source), stageClock)));
+        } catch (ReaderException re) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * 定位点外接矩形向外扩展，定位点只是码的角，至少扩展码尺寸的一半
+     */
+    private int[] pointRegion(int width, int height) {
+        PointCollector points = pointCollector;
+        float size = Math.max(points.maxX - points.minX, points.maxY - points.minY);
+        float pad = Math.max(size / 2, Math.min(width, height) / 8f);
+        return clamp(points.minX - pad, points.minY - pad, points.maxX + pad, points.maxY + pad, width, height);
+    }
+
+    /**
+     * 在缩小图上按网格统计明暗跳变，取跳变密集网格的外接矩形，再向外扩展一格
+     */
+    private int[] denseRegion(DownsampledLuminanceSource downsampled, int factor, int width, int height) {
+        byte[] pixels = downsampled.getMatrix();
+        int levelWidth = downsampled.getWidth();
+        int levelHeight = downsampled.getHeight();
+        int tilesX = (levelWidth + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (levelHeight + TILE_SIZE - 1) / TILE_SIZE;
+        if (tileEdges.length != tilesX * tilesY) {
+            tileEdges = new int[tilesX * tilesY];
+        } else {
+            Arrays.fill(tileEdges, 0);
+        }
+        // Sample every other row and column, both directions, so bars at any angle are counted
+        for (int y = 0; y < levelHeight - 1; y += 2) {
+            int rowOffset = y * levelWidth;
+            int tileRow = (y / TILE_SIZE) * tilesX;
+            for (int x = 0; x < levelWidth - 1; x += 2) {
+                int p = pixels[rowOffset + x] & 0xff;
+                int edges = 0;
+                if (Math.abs(p - (pixels[rowOffset + x + 1] & 0xff)) > EDGE_THRESHOLD) {
+                    edges++;
+                }
+                if (Math.abs(p - (pixels[rowOffset + levelWidth + x] & 0xff)) > EDGE_THRESHOLD) {
+                    edges++;
+                }
+                tileEdges[tileRow + x / TILE_SIZE] += edges;
+            }
+        }
+
+        int maxEdges = 0;
+        for (int edges : tileEdges) {
+            maxEdges = Math.max(maxEdges, edges);
+        }
+        // Two samples per visited pixel, a quarter of the pixels visited
+        int samplesPerTile = TILE_SIZE * TILE_SIZE / 2;
+        if (maxEdges < samplesPerTile * MIN_TILE_DENSITY) {
+            return null;
+        }
+        int threshold = Math.max(maxEdges / 2, (int) (samplesPerTile * MIN_TILE_DENSITY));
+        int minTileX = tilesX;
+        int minTileY = tilesY;
+        int maxTileX = -1;
+        int maxTileY = -1;
+        for (int tileY = 0; tileY < tilesY; tileY++) {
+            for (int tileX = 0; tileX < tilesX; tileX++) {
+                if (tileEdges[tileY * tilesX + tileX] >= threshold) {
+                    minTileX = Math.min(minTileX, tileX);
+                    minTileY = Math.min(minTileY, tileY);
+                    maxTileX = Math.max(maxTileX, tileX);
+                    maxTileY = Math.max(maxTileY, tileY);
+                }
+            }
+        }
+        int scale = TILE_SIZE * factor;
+        return clamp((minTileX - 1) * scale, (minTileY - 1) * scale,
+                (maxTileX + 2) * scale, (maxTileY + 2) * scale, width, height);
+    }
+
+    private static int[] clamp(float left, float top, float right, float bottom, int width, int height) {
+        int l = Math.max(0, (int) left);
+        int t = Math.max(0, (int) top);
+        int r = Math.min(width, (int) Math.ceil(right));
+        int b = Math.min(height, (int) Math.ceil(bottom));
+        if (r <= l || b <= t) {
+            return null;
+        }
+        return new int[]{l, t, r, b};
+    }
+
+    /**
+     * 把识别结果中的坐标换算为原分辨率坐标
+     */
+    static Result transform(Result result, int scale, int offsetX, int offsetY) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null || (scale == 1 && offsetX == 0 && offsetY == 0)) {
+            return result;
+        }
+        ResultPoint[] transformed = new ResultPoint[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ResultPoint point = points[i];
+            transformed[i] = point == null ? null
+                    : new ResultPoint(point.getX() * scale + offsetX, point.getY() * scale + offsetY);
+        }
+        Result scaled = new Result(result.getText(), result.getRawBytes(), result.getNumBits(), transformed,
+                result.getBarcodeFormat(), result.getTimestamp());
+        scaled.putAllMetadata(result.getResultMetadata());
+        return scaled;
+    }
+
+    /**
+     * 记录识别过程中发现的定位点，并换算为原分辨率坐标转发给原始回调
+     */
+    private static final class PointCollector implements ResultPointCallback {
+
+        private final ResultPointCallback delegate;
+        private int scale = 1;
+        private int offsetX;
+        private int offsetY;
+        private boolean hasPoints;
+        private float minX;
+        private float minY;
+        private float maxX;
+        private float maxY;
+
+        PointCollector(ResultPointCallback delegate) {
+            this.delegate = delegate;
+        }
+
+        void reset(int scale, int offsetX, int offsetY) {
+            this.scale = scale;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            hasPoints = false;
+        }
+
+        boolean hasPoints() {
+            return hasPoints;
+        }
+
+        @Override
+        public void foundPossibleResultPoint(ResultPoint point) {
+            float x = point.getX() * scale + offsetX;
+            float y = point.getY() * scale + offsetY;
+            if (hasPoints) {
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            } else {
+                minX = maxX = x;
+                minY = maxY = y;
+                hasPoints = true;
+            }
+            if (delegate != null) {
+                delegate.foundPossibleResultPoint(new ResultPoint(x, y));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+
+/**
+ * 识别区域跟踪
+ * 根据识别过程中发现的定位点和上一次识别结果的坐标，记录码在画面中的位置。之后的帧只识别该位置附近的区域，
+ * 连续若干帧没有识别出来后恢复识别整个扫描区域。
+ * 坐标均为旋转后的预览帧坐标，区域以{left, top, right, bottom}表示。所有解码线程共用一个实例。
+ */
+public final class RoiTracker {
+
+    /*定位点外接矩形向外扩展的比例*/
+    private static final float PADDING_RATIO = 0.5f;
+    /*至少向外扩展的像素，只发现一个定位点时也能框住整个码*/
+    private static final int MIN_PADDING = 120;
+
+    private final int maxMisses;
+    private final int[] region = new int[4];
+    private boolean hasRegion;
+    private int misses;
+
+    private long trackedFrames;
+    private long lostCount;
+
+    /**
+     * @param maxMisses 连续多少帧没有识别出来后恢复识别整个扫描区域
+     */
+    public RoiTracker(int maxMisses) {
+        this.maxMisses = Math.max(1, maxMisses);
+    }
+
+    /**
+     * 取下一帧要识别的区域
+     *
+     * @param out 长度为4，存放{left, top, right, bottom}
+     * @return 是否有记录的区域，false表示识别整个扫描区域
+     */
+    public synchronized boolean getRegion(int[] out) {
+        if (!hasRegion) {
+            return false;
+        }
+        trackedFrames++;
+        System.arraycopy(region, 0, out, 0, 4);
+        return true;
+    }
+
+    /**
+     * 一帧识别结束后更新位置
+     *
+     * @param frame 这一帧收集到的定位点
+     * @param found 是否识别成功
+     */
+    synchronized void update(FramePoints frame, boolean found) {
+        if (found) {
+            misses = 0;
+            if (frame.resultBox.hasPoints) {
+                frame.resultBox.toRegion(region);
+                hasRegion = true;
+            }
+            return;
+        }
+        if (!hasRegion) {
+            // Something looked like a code; look closer at it next time
+            if (frame.pointBox.hasPoints) {
+                frame.pointBox.toRegion(region);
+                hasRegion = true;
+                misses = 0;
+            }
+            return;
+        }
+        if (++misses >= maxMisses) {
+            hasRegion = false;
+            misses = 0;
+            lostCount++;
+        } else if (frame.pointBox.hasPoints) {
+            frame.pointBox.toRegion(region);
+        }
+    }
+
+    /**
+     * 清除记录的位置
+     */
+    public synchronized void reset() {
+        hasRegion = false;
+        misses = 0;
+    }
+
+    /**
+     * @return 只识别了局部区域的帧数
+     */
+    public synchronized long getTrackedFrames() {
+        return trackedFrames;
+    }
+
+    /**
+     * @return 跟丢后恢复识别整个扫描区域的次数
+     */
+    public synchronized long getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * 收集一帧内发现的定位点，换算为旋转后的预览帧坐标。每个解码线程各持有一个。
+     */
+    static final class FramePoints implements ResultPointCallback {
+
+        private final ResultPointCallback delegate;
+        private final Box pointBox = new Box();
+        private final Box resultBox = new Box();
+        private int originX;
+        private int originY;
+
+        /**
+         * @param delegate 原始的定位点回调，可为null
+         */
+        FramePoints(ResultPointCallback delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * 开始识别新的一帧
+         *
+         * @param originX 亮度数据左上角在预览帧中的横坐标
+         * @param originY 亮度数据左上角在预览帧中的纵坐标
+         */
+        void begin(int originX, int originY) {
+            this.originX = originX;
+            this.originY = originY;
+            pointBox.hasPoints = false;
+            resultBox.hasPoints = false;
+        }
+
+        void addResult(Result result) {
+            ResultPoint[] points = result.getResultPoints();
+            if (points != null) {
+                for (ResultPoint point : points) {
+                    if (point != null) {
+                        resultBox.add(point.getX() + originX, point.getY() + originY);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void foundPossibleResultPoint(ResultPoint point) {
+            pointBox.add(point.getX() + originX, point.getY() + originY);
+            if (delegate != null) {
+                delegate.foundPossibleResultPoint(point);
+            }
+        }
+    }
+
+    private static final class Box {
+
+        boolean hasPoints;
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+
+        void add(float x, float y) {
+            if (hasPoints) {
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            } else {
+                minX = maxX = x;
+                minY = maxY = y;
+                hasPoints = true;
+            }
+        }
+
+        void toRegion(int[] out) {
+            float pad = Math.max(MIN_PADDING, Math.max(maxX - minX, maxY - minY) * PADDING_RATIO);
+            out[0] = (int) Math.max(0, minX - pad);
+            out[1] = (int) Math.max(0, minY - pad);
+            out[2] = (int) Math.ceil(maxX + pad);
+            out[3] = (int) Math.ceil(maxY + pad);
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+/**
+ * 先裁剪后旋转的LuminanceSource
+ * 裁剪区域以旋转后的坐标给出，先映射回传感器坐标，只把扫描框内的亮度数据按顺时针旋转复制到可复用的缓冲区，
+ * 不再为整帧分配并旋转一份数据
+ */
+public final class RotatedCropLuminanceSource extends LuminanceSource {
+
+    private final byte[] pixels;
+    private final int left;
+    private final int top;
+
+    /**
+     * @param yuvData     预览帧，Y分量在前（NV21）
+     * @param dataWidth   预览帧宽度（传感器方向）
+     * @param dataHeight  预览帧高度（传感器方向）
+     * @param rotation    顺时针旋转角度，只支持0、90、180、270
+     * @param left        裁剪区域左边界，旋转后的坐标
+     * @param top         裁剪区域上边界，旋转后的坐标
+     * @param width       裁剪区域宽度
+     * @param height      裁剪区域高度
+     * @param reuseBuffer 上一帧的缓冲区，长度刚好为width * height时复用，可为null
+     */
+    public RotatedCropLuminanceSource(byte[] yuvData,
+                                      int dataWidth,
+                                      int dataHeight,
+                                      int rotation,
+                                      int left,
+                                      int top,
+                                      int width,
+                                      int height,
+                                      byte[] reuseBuffer) {
+        super(width, height);
+        boolean swapped = rotation == 90 || rotation == 270;
+        if (!swapped && rotation != 0 && rotation != 180) {
+            throw new IllegalArgumentException("Bad rotation: " + rotation);
+        }
+        int rotatedWidth = swapped ? dataHeight : dataWidth;
+        int rotatedHeight = swapped ? dataWidth : dataHeight;
+        if (left < 0 || top < 0 || left + width > rotatedWidth || top + height > rotatedHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        this.left = left;
+        this.top = top;
+        int area = width * height;
+        pixels = reuseBuffer != null && reuseBuffer.length == area ? reuseBuffer : new byte[area];
+
+        for (int y = 0; y < height; y++) {
+            int outputOffset = y * width;
+            int inputOffset;
+            int step;
+            switch (rotation) {
+                case 90:
+                    inputOffset = (dataHeight - 1 - left) * dataWidth + top + y;
+                    step = -dataWidth;
+                    break;
+                case 180:
+                    inputOffset = (dataHeight - 1 - top - y) * dataWidth + dataWidth - 1 - left;
+                    step = -1;
+                    break;
+                case 270:
+                    inputOffset = left * dataWidth + dataWidth - 1 - top - y;
+                    step = dataWidth;
+                    break;
+                default:
+                    System.arraycopy(yuvData, (top + y) * dataWidth + left, pixels, outputOffset, width);
+                    continue;
+            }
+            for (int x = 0; x < width; x++) {
+                pixels[outputOffset + x] = yuvData[inputOffset];
+                inputOffset += step;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        System.arraycopy(pixels, y * width, row, 0, width);
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        return pixels;
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        return new PlanarYUVLuminanceSource(pixels, getWidth(), getHeight(), left, top, width, height, false);
+    }
+
+    /**
+     * @return 裁剪区域左边界，旋转后的坐标
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * @return 裁剪区域上边界，旋转后的坐标
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * @return 旋转后的亮度数据，可作为下一帧的reuseBuffer
+     */
+    public byte[] getBuffer() {
+        return pixels;
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量生成码
+ * 内容在固定数量的编码线程上编码并压缩为PNG，每个线程复用自己的writer和压缩器；结果按完成顺序交给{@link CodeSink}，
+ * 例如写入目录（{@link DirectoryCodeSink}）或ZIP（{@link ZipCodeSink}）。
+ * 等待写出的PNG数量受内存上限限制，内容可以是按需读取的迭代器，数量不受内存限制。不依赖Android。
+ */
+public final class BatchCodeEncoder {
+
+    /*默认的内存上限，等待写出的PNG按未压缩的1位像素估算*/
+    public static final long DEFAULT_MEMORY_LIMIT = 32L * 1024 * 1024;
+    /*每个输出缓冲区预先分配的大小*/
+    private static final int OUTPUT_BUFFER_BYTES = 8192;
+    /*每个编码线程最多对应的缓冲区数，足以让线程在写出时不空闲*/
+    private static final int SLOTS_PER_THREAD = 4;
+
+    private final EncodeOption option;
+    private final Map<EncodeHintType, Object> hints;
+    private final int threadCount;
+    private final ExecutorService executor;
+    /*空闲的writer和压缩器，跨批次复用*/
+    private final BlockingQueue<Worker> idleWorkers;
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+
+    /**
+     * @param option      码的格式、大小等
+     * @param threadCount 编码线程数
+     */
+    public BatchCodeEncoder(EncodeOption option, int threadCount) {
+        this.option = option;
+        this.hints = option.buildHints();
+        this.threadCount = Math.max(1, threadCount);
+        idleWorkers = new ArrayBlockingQueue<Worker>(this.threadCount);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threadCount, this.threadCount,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BatchCodeEncoder-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    /**
+     * @param bytes 等待写出的PNG占用的内存上限，至少保留一张
+     */
+    public BatchCodeEncoder setMemoryLimit(long bytes) {
+        this.memoryLimit = bytes;
+        return this;
+    }
+
+    public EncodeStats encode(Iterable<String> contents, CodeSink sink) throws IOException, InterruptedException {
+        return encode(contents.iterator(), sink);
+    }
+
+    /**
+     * 生成一批码，阻塞到全部写出；sink抛出异常时停止，尚未编码的内容不再编码
+     *
+     * @param contents 码的内容，在调用线程上依次读取
+     * @param sink     接收结果，在调用线程上回调
+     * @return 统计
+     */
+    public EncodeStats encode(Iterator<String> contents, CodeSink sink) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        // Each slot holds one finished PNG until the sink has written it; estimated from the 1-bit raw size,
+        // deflate rarely adds more than the headroom but an incompressible code can exceed it.
+        // Small codes still cost the preallocated buffer, and more slots than threads can fill gain nothing
+        long slotBytes = Math.max((long) (option.getWidth() + 15) / 8 * option.getHeight() + 4096,
+                OUTPUT_BUFFER_BYTES);
+        int maxSlots = (int) Math.max(1, Math.min(threadCount * SLOTS_PER_THREAD, memoryLimit / slotBytes));
+        BlockingQueue<Job> finished = new LinkedBlockingQueue<>();
+        ArrayDeque<Job> freeSlots = new ArrayDeque<>();
+        AtomicBoolean aborted = new AtomicBoolean();
+        int slots = 0;
+        int pending = 0;
+        int total = 0;
+        int failed = 0;
+        long bytes = 0;
+        try {
+            while (contents.hasNext()) {
+                Job job = freeSlots.poll();
+                if (job == null && slots < maxSlots) {
+                    job = new Job();
+                    slots++;
+                }
+                if (job == null) {
+                    job = finished.take();
+                    pending--;
+                    bytes += deliver(job, sink);
+                    failed += job.error != null ? 1 : 0;
+                }
+                job.index = total++;
+                job.content = contents.next();
+                job.error = null;
+                job.output.reset();
+                executor.execute(new EncodeTask(job, finished, aborted));
+                pending++;
+                // Write out whatever is already done so slots come back early
+                while ((job = finished.poll()) != null) {
+                    pending--;
+                    bytes += deliver(job, sink);
+                    failed += job.error != null ? 1 : 0;
+                    freeSlots.add(job);
+                }
+            }
+            while (pending > 0) {
+                Job job = finished.take();
+                pending--;
+                bytes += deliver(job, sink);
+                failed += job.error != null ? 1 : 0;
+            }
+        } finally {
+            if (pending > 0) {
+                aborted.set(true);
+            }
+        }
+        return new EncodeStats(total, failed, bytes, System.nanoTime() - start);
+    }
+
+    private static long deliver(Job job, CodeSink sink) throws IOException {
+        if (job.error != null) {
+            sink.onEncodeFailed(job.index, job.content, job.error);
+            return 0;
+        }
+        sink.write(job.index, job.content, job.output.array(), job.output.size());
+        return job.output.size();
+    }
+
+    /**
+     * 不再接受新的批次，正在进行的批次不受影响
+     */
+    public void shutdown() {
+        executor.shutdown();
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.png.close();
+        }
+    }
+
+    private Worker obtainWorker() {
+        Worker worker = idleWorkers.poll();
+        return worker != null ? worker : new Worker();
+    }
+
+    private static final class Worker {
+
+        final MultiFormatWriter writer = new MultiFormatWriter();
+        final PngWriter png = new PngWriter();
+    }
+
+    /**
+     * 一个待写出的码，输出缓冲区在一批中循环使用
+     */
+    private static final class Job {
+
+        final Output output = new Output();
+        int index;
+        String content;
+        Throwable error;
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(OUTPUT_BUFFER_BYTES);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private final class EncodeTask implements Runnable {
+
+        private final Job job;
+        private final BlockingQueue<Job> finished;
+        private final AtomicBoolean aborted;
+
+        EncodeTask(Job job, BlockingQueue<Job> finished, AtomicBoolean aborted) {
+            this.job = job;
+            this.finished = finished;
+            this.aborted = aborted;
+        }
+
+        @Override
+        public void run() {
+            if (aborted.get()) {
+                return;
+            }
+            Worker worker = obtainWorker();
+            try {
+                BitMatrix matrix = worker.writer.encode(job.content, option.getFormat(),
+                        option.getWidth(), option.getHeight(), hints);
+                worker.png.write(matrix, job.output);
+            } catch (Throwable e) {
+                // WriterException, IllegalArgumentException for content the format cannot hold,
+                // or an Error such as OutOfMemoryError; either way the output is incomplete
+                job.error = e;
+            } finally {
+                idleWorkers.offer(worker);
+                finished.add(job);
+            }
+        }
+    }
+
+}
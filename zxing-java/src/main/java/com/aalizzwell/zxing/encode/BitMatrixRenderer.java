@@ -0,0 +1,141 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Arrays;
+
+/**
+ * 把编码得到的BitMatrix转为像素数组
+ * 按行取出整行的位（{@link BitMatrix#getRow}），以连续相同颜色的一段为单位填充；码的一个模块通常占多行，
+ * 与上一行完全相同的行直接复制，不再逐个像素调用{@link BitMatrix#get}。
+ * 不依赖Android，结果可以直接交给Bitmap.setPixels，也可以在服务端写成图片。
+ */
+public final class BitMatrixRenderer {
+
+    public static final int BLACK = 0xff000000;
+    public static final int WHITE = 0xffffffff;
+
+    private BitMatrixRenderer() {
+    }
+
+    /**
+     * @param matrix     位矩阵
+     * @param foreground 黑色模块的ARGB颜色
+     * @param background 白色模块的ARGB颜色
+     * @return 按行排列的ARGB像素，长度为width * height
+     */
+    public static int[] toPixels(BitMatrix matrix, int foreground, int background) {
+        return toPixels(matrix, foreground, background, null);
+    }
+
+    /**
+     * @param reuse 长度足够时复用，可为null
+     * @return 按行排列的ARGB像素，前width * height个有效
+     */
+    public static int[] toPixels(BitMatrix matrix, int foreground, int background, int[] reuse) {
+        int area = matrix.getWidth() * matrix.getHeight();
+        int[] pixels = reuse != null && reuse.length >= area ? reuse : new int[area];
+        renderRows(matrix, 0, matrix.getHeight(), foreground, background, pixels);
+        return pixels;
+    }
+
+    /**
+     * 只转换其中几行，分段写入Bitmap时不必为整张图分配像素数组
+     *
+     * @param top  起始行
+     * @param rows 行数
+     * @param out  长度至少为width * rows
+     */
+    public static void renderRows(BitMatrix matrix, int top, int rows, int foreground, int background, int[] out) {
+        int width = matrix.getWidth();
+        BitArray row = new BitArray(width);
+        BitArray previous = new BitArray(width);
+        for (int i = 0; i < rows; i++) {
+            int offset = i * width;
+            row = matrix.getRow(top + i, row);
+            if (i > 0 && Arrays.equals(row.getBitArray(), previous.getBitArray())) {
+                System.arraycopy(out, offset - width, out, offset, width);
+            } else {
+                int x = 0;
+                while (x < width) {
+                    boolean set = row.get(x);
+                    int end = set ? row.getNextUnset(x) : row.getNextSet(x);
+                    Arrays.fill(out, offset + x, offset + end, set ? foreground : background);
+                    x = end;
+                }
+            }
+            BitArray swap = previous;
+            previous = row;
+            row = swap;
+        }
+    }
+
+    /**
+     * @return 按行排列的灰度像素，黑色模块为0，白色模块为255
+     */
+    public static byte[] toGray(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        byte[] pixels = new byte[width * height];
+        BitArray row = new BitArray(width);
+        BitArray previous = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            row = matrix.getRow(y, row);
+            if (y > 0 && Arrays.equals(row.getBitArray(), previous.getBitArray())) {
+                System.arraycopy(pixels, offset - width, pixels, offset, width);
+            } else {
+                int x = 0;
+                while (x < width) {
+                    boolean set = row.get(x);
+                    int end = set ? row.getNextUnset(x) : row.getNextSet(x);
+                    Arrays.fill(pixels, offset + x, offset + end, set ? 0 : (byte) 0xff);
+                    x = end;
+                }
+            }
+            BitArray swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return pixels;
+    }
+
+    /**
+     * 每个模块一个像素的矩阵按最近邻放大，例如编码时宽高传0得到的矩阵
+     *
+     * @param modules 每个模块一个像素的矩阵
+     * @param width   输出宽度
+     * @param height  输出高度
+     * @param reuse   长度足够时复用，可为null
+     * @return 按行排列的ARGB像素，前width * height个有效
+     */
+    public static int[] scaleToPixels(BitMatrix modules, int width, int height,
+                                      int foreground, int background, int[] reuse) {
+        int area = width * height;
+        int[] pixels = reuse != null && reuse.length >= area ? reuse : new int[area];
+        int moduleWidth = modules.getWidth();
+        int moduleHeight = modules.getHeight();
+        BitArray row = new BitArray(moduleWidth);
+        int previousModuleY = -1;
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            int moduleY = (int) ((long) y * moduleHeight / height);
+            if (moduleY == previousModuleY) {
+                System.arraycopy(pixels, offset - width, pixels, offset, width);
+                continue;
+            }
+            row = modules.getRow(moduleY, row);
+            for (int moduleX = 0; moduleX < moduleWidth; moduleX++) {
+                // First output column whose nearest module is moduleX
+                int start = (int) (((long) moduleX * width + moduleWidth - 1) / moduleWidth);
+                int end = (int) (((long) (moduleX + 1) * width + moduleWidth - 1) / moduleWidth);
+                Arrays.fill(pixels, offset + start, offset + Math.min(end, width),
+                        row.get(moduleX) ? foreground : background);
+            }
+            previousModuleY = moduleY;
+        }
+        return pixels;
+    }
+
+}
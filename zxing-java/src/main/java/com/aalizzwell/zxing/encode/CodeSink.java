@@ -0,0 +1,24 @@
+package com.aalizzwell.zxing.encode;
+
+import java.io.IOException;
+
+/**
+ * 接收批量生成的码，见{@link BatchCodeEncoder}
+ * 所有回调都在调用{@link BatchCodeEncoder#encode}的线程上依次执行，实现不必考虑线程安全。
+ */
+public interface CodeSink {
+
+    /**
+     * @param index   内容在这一批中的序号，到达顺序不一定按序号
+     * @param content 码的内容
+     * @param data    图片数据，只在回调期间有效，之后会被复用
+     * @param length  data中有效的字节数
+     */
+    void write(int index, String content, byte[] data, int length) throws IOException;
+
+    /**
+     * 内容无法编码，例如超出容量、条形码含有不支持的字符；尺寸过大时也可能是OutOfMemoryError
+     */
+    void onEncodeFailed(int index, String content, Throwable e);
+
+}
@@ -0,0 +1,48 @@
+package com.aalizzwell.zxing.encode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * 把批量生成的码逐个写成目录下的图片文件
+ * 默认以序号命名，例如000042.png，需要按内容命名时重写{@link #fileName}。编码失败的内容不生成文件。
+ */
+public class DirectoryCodeSink implements CodeSink {
+
+    private final File directory;
+
+    /**
+     * @param directory 输出目录，不存在时创建
+     */
+    public DirectoryCodeSink(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * @return 文件名，不含目录
+     */
+    protected String fileName(int index, String content) {
+        return String.format(Locale.US, "%06d.png", index);
+    }
+
+    @Override
+    public void write(int index, String content, byte[] data, int length) throws IOException {
+        FileOutputStream out = new FileOutputStream(new File(directory, fileName(index, content)));
+        try {
+            out.write(data, 0, length);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public void onEncodeFailed(int index, String content, Throwable e) {
+        // Counted in EncodeStats; subclasses may log it
+    }
+
+}
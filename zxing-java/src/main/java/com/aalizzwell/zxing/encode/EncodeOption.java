@@ -0,0 +1,103 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 生成码的配置项，见{@link BatchCodeEncoder}
+ */
+public class EncodeOption {
+    //码的格式
+    private BarcodeFormat format = BarcodeFormat.QR_CODE;
+    //输出宽度，码本身比它大时以码为准
+    private int width = 300;
+    //输出高度
+    private int height = 300;
+    //空白边距，二维码以模块为单位，条形码以像素为单位
+    private int margin = 1;
+    //容错级别，只用于二维码
+    private ErrorCorrectionLevel errorCorrection = ErrorCorrectionLevel.H;
+    //内容的字符集
+    private String characterSet = "utf-8";
+
+    public BarcodeFormat getFormat() {
+        return format;
+    }
+
+    public EncodeOption setFormat(BarcodeFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public EncodeOption setWidth(int width) {
+        this.width = width;
+        return this;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public EncodeOption setHeight(int height) {
+        this.height = height;
+        return this;
+    }
+
+    public EncodeOption setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    public int getMargin() {
+        return margin;
+    }
+
+    public EncodeOption setMargin(int margin) {
+        this.margin = margin;
+        return this;
+    }
+
+    public ErrorCorrectionLevel getErrorCorrection() {
+        return errorCorrection;
+    }
+
+    public EncodeOption setErrorCorrection(ErrorCorrectionLevel errorCorrection) {
+        this.errorCorrection = errorCorrection;
+        return this;
+    }
+
+    public String getCharacterSet() {
+        return characterSet;
+    }
+
+    public EncodeOption setCharacterSet(String characterSet) {
+        this.characterSet = characterSet;
+        return this;
+    }
+
+    /**
+     * @return 交给Writer的hints
+     */
+    public Map<EncodeHintType, Object> buildHints() {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, margin);
+        if (characterSet != null) {
+            hints.put(EncodeHintType.CHARACTER_SET, characterSet);
+        }
+        // PDF417 and Aztec take an Integer here, only QR understands the enum
+        if (format == BarcodeFormat.QR_CODE && errorCorrection != null) {
+            hints.put(EncodeHintType.ERROR_CORRECTION, errorCorrection);
+        }
+        return hints;
+    }
+
+}
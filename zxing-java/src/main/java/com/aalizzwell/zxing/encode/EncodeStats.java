@@ -0,0 +1,59 @@
+package com.aalizzwell.zxing.encode;
+
+import java.util.Locale;
+
+/**
+ * 一批码的生成结果统计
+ */
+public final class EncodeStats {
+
+    /*提交的内容数*/
+    private final int total;
+    /*编码失败的数量*/
+    private final int failed;
+    /*写出的字节数*/
+    private final long bytes;
+    /*从开始到最后一个写出的耗时*/
+    private final long elapsedNanos;
+
+    EncodeStats(int total, int failed, long bytes, long elapsedNanos) {
+        this.total = total;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getEncoded() {
+        return total - failed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return 每秒生成的码数
+     */
+    public double getCodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getEncoded() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d/%d codes, %d bytes in %.1f ms, %.0f codes/s",
+                getEncoded(), total, bytes, elapsedNanos / 1e6, getCodesPerSecond());
+    }
+
+}
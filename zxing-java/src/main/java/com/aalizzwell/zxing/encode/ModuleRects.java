@@ -0,0 +1,80 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+
+/**
+ * 把BitMatrix中的黑色模块合并为矩形
+ * 每行连续的黑色模块合并为一段，与上一行起止相同的段继续向下延伸，段结束时输出矩形。
+ * 只保存一行的段，内存与矩阵宽度成正比。矢量输出和Canvas绘制都按矩形填充，不必逐个模块绘制。
+ */
+public final class ModuleRects {
+
+    public interface RectConsumer {
+        void rect(int left, int top, int width, int height) throws IOException;
+    }
+
+    private ModuleRects() {
+    }
+
+    public static void forEach(BitMatrix matrix, RectConsumer consumer) throws IOException {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        // Open rectangles, sorted by left edge: left, right (exclusive), top
+        int[] open = new int[width + 1];
+        int[] openRight = new int[width + 1];
+        int[] openTop = new int[width + 1];
+        int openCount = 0;
+        int[] next = new int[width + 1];
+        int[] nextRight = new int[width + 1];
+        int[] nextTop = new int[width + 1];
+        BitArray row = new BitArray(width);
+        for (int y = 0; y <= height; y++) {
+            int nextCount = 0;
+            int o = 0;
+            if (y < height) {
+                row = matrix.getRow(y, row);
+                int x = row.getNextSet(0);
+                while (x < width) {
+                    int end = Math.min(width, row.getNextUnset(x));
+                    // Close open rectangles that end before this run or do not match it
+                    while (o < openCount && open[o] < x) {
+                        consumer.rect(open[o], openTop[o], openRight[o] - open[o], y - openTop[o]);
+                        o++;
+                    }
+                    int top = y;
+                    if (o < openCount && open[o] == x) {
+                        if (openRight[o] == end) {
+                            top = openTop[o];
+                        } else {
+                            consumer.rect(open[o], openTop[o], openRight[o] - open[o], y - openTop[o]);
+                        }
+                        o++;
+                    }
+                    next[nextCount] = x;
+                    nextRight[nextCount] = end;
+                    nextTop[nextCount] = top;
+                    nextCount++;
+                    x = end < width ? row.getNextSet(end) : width;
+                }
+            }
+            while (o < openCount) {
+                consumer.rect(open[o], openTop[o], openRight[o] - open[o], y - openTop[o]);
+                o++;
+            }
+            int[] swap = open;
+            open = next;
+            next = swap;
+            swap = openRight;
+            openRight = nextRight;
+            nextRight = swap;
+            swap = openTop;
+            openTop = nextTop;
+            nextTop = swap;
+            openCount = nextCount;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * 把BitMatrix写成只有一页的PDF
+ * 页面就是码本身，一个模块为一个单位，通过变换矩阵缩放到指定尺寸；相邻的黑色模块合并为矩形填充。
+ * 内容流的长度写在流之后的对象中，整个文件边生成边写出，内存只与模块数有关。
+ */
+public final class PdfWriter {
+
+    /*每毫米的点数，PDF以1/72英寸为单位*/
+    public static final double POINTS_PER_MM = 72 / 25.4;
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private PdfWriter() {
+    }
+
+    /**
+     * 每个模块1毫米
+     */
+    public static void write(BitMatrix matrix, OutputStream out) throws IOException {
+        write(matrix, matrix.getWidth() * POINTS_PER_MM, matrix.getHeight() * POINTS_PER_MM,
+                BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE, out);
+    }
+
+    /**
+     * @param matrix     位矩阵
+     * @param width      页面宽度，单位为点（1/72英寸）
+     * @param height     页面高度，单位为点
+     * @param foreground 黑色模块的颜色，不支持透明度
+     * @param background 背景色，完全透明时不画背景
+     * @param out        输出，写完后不关闭
+     */
+    public static void write(BitMatrix matrix, double width, double height,
+                             int foreground, int background, OutputStream out) throws IOException {
+        final PdfOutput pdf = new PdfOutput(out);
+        String w = SvgWriter.number(width);
+        String h = SvgWriter.number(height);
+        long[] offsets = new long[6];
+        pdf.print("%PDF-1.4\n");
+
+        offsets[1] = pdf.count;
+        pdf.print("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = pdf.count;
+        pdf.print("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        offsets[3] = pdf.count;
+        pdf.print("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + w + " " + h
+                + "] /Contents 4 0 R /Resources << >> >>\nendobj\n");
+
+        offsets[4] = pdf.count;
+        pdf.print("4 0 obj\n<< /Length 5 0 R >>\nstream\n");
+        long streamStart = pdf.count;
+        if ((background >>> 24) != 0) {
+            pdf.print(color(background) + " rg\n0 0 " + w + " " + h + " re f\n");
+        }
+        // Module space: one unit per module, y pointing down like the matrix
+        pdf.print(color(foreground) + " rg\n"
+                + SvgWriter.number(width / matrix.getWidth()) + " 0 0 "
+                + SvgWriter.number(-height / matrix.getHeight()) + " 0 " + h + " cm\n");
+        ModuleRects.forEach(matrix, new ModuleRects.RectConsumer() {
+            @Override
+            public void rect(int left, int top, int width, int height) throws IOException {
+                pdf.print(left + " " + top + " " + width + " " + height + " re\n");
+            }
+        });
+        pdf.print("f\n");
+        long streamLength = pdf.count - streamStart;
+        pdf.print("endstream\nendobj\n");
+        offsets[5] = pdf.count;
+        pdf.print("5 0 obj\n" + streamLength + "\nendobj\n");
+
+        long xref = pdf.count;
+        pdf.print("xref\n0 6\n0000000000 65535 f \n");
+        for (int i = 1; i < offsets.length; i++) {
+            pdf.print(String.format(Locale.US, "%010d 00000 n \n", offsets[i]));
+        }
+        pdf.print("trailer\n<< /Size 6 /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        pdf.flush();
+    }
+
+    private static String color(int color) {
+        return SvgWriter.number(((color >> 16) & 0xff) / 255.0) + " "
+                + SvgWriter.number(((color >> 8) & 0xff) / 255.0) + " "
+                + SvgWriter.number((color & 0xff) / 255.0);
+    }
+
+    /**
+     * 记录已写出的字节数，用于交叉引用表
+     */
+    private static final class PdfOutput {
+
+        private final OutputStream out;
+        long count;
+
+        PdfOutput(OutputStream out) {
+            this.out = new BufferedOutputStream(out);
+        }
+
+        void print(String text) throws IOException {
+            byte[] bytes = text.getBytes(ASCII);
+            out.write(bytes);
+            count += bytes.length;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 把BitMatrix写成1位的PNG
+ * 黑白两色时写为1位灰度，其他颜色写为两色调色板，每个像素只占1位。可以按模块放大：矩阵每个模块一个像素
+ * （编码时宽高传0），写出时每个模块放大为scale × scale个像素，相同的行只生成一次。
+ * 逐行压缩并边压缩边写出，不生成整张图的像素数组，也不依赖ImageIO或Android。
+ * 压缩器和行缓冲区在多次写入间复用，非线程安全，每个线程各持有一个。
+ */
+public final class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] PLTE = {'P', 'L', 'T', 'E'};
+    private static final byte[] TRNS = {'t', 'R', 'N', 'S'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final int COLOR_TYPE_PALETTE = 3;
+    /*一个IDAT块的最大字节数*/
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    private final CRC32 crc = new CRC32();
+    private final Deflater deflater;
+    private final IdatOutputStream idat = new IdatOutputStream();
+    private final DeflaterOutputStream compressor;
+    private final byte[] header = new byte[13];
+    private final byte[] word = new byte[4];
+    private int foreground = BitMatrixRenderer.BLACK;
+    private int background = BitMatrixRenderer.WHITE;
+    private byte[] row = new byte[0];
+    private BitArray bits;
+    private BitArray previousBits;
+
+    public PngWriter() {
+        // Two-colour rows compress well even at the fastest level
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level 压缩级别，见{@link Deflater}
+     */
+    public PngWriter(int level) {
+        deflater = new Deflater(level);
+        compressor = new DeflaterOutputStream(idat, deflater, 8192);
+    }
+
+    /**
+     * @param foreground 黑色模块的ARGB颜色
+     * @param background 白色模块的ARGB颜色
+     */
+    public PngWriter setColors(int foreground, int background) {
+        this.foreground = foreground;
+        this.background = background;
+        return this;
+    }
+
+    /**
+     * 每个模块一个像素，或矩阵已经是输出大小
+     *
+     * @param matrix 位矩阵
+     * @param out    输出，写完后不关闭
+     */
+    public void write(BitMatrix matrix, OutputStream out) throws IOException {
+        write(matrix, 1, out);
+    }
+
+    /**
+     * @param matrix 位矩阵
+     * @param scale  每个模块在输出中的边长
+     * @param out    输出，写完后不关闭
+     */
+    public void write(BitMatrix matrix, int scale, OutputStream out) throws IOException {
+        int columns = matrix.getWidth();
+        int rows = matrix.getHeight();
+        int width = columns * scale;
+        int height = rows * scale;
+        boolean palette = foreground != BitMatrixRenderer.BLACK || background != BitMatrixRenderer.WHITE;
+        out.write(SIGNATURE);
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 1; // bit depth
+        header[9] = (byte) (palette ? COLOR_TYPE_PALETTE : COLOR_TYPE_GRAYSCALE);
+        header[10] = 0; // deflate
+        header[11] = 0; // adaptive filtering
+        header[12] = 0; // no interlace
+        writeChunk(out, IHDR, header, header.length);
+        if (palette) {
+            writePalette(out);
+        }
+
+        // One filter byte, then one bit per pixel; a set bit is the background in both modes
+        int rowBytes = 1 + (width + 7) / 8;
+        if (row.length < rowBytes) {
+            row = new byte[rowBytes];
+        }
+        row[0] = 0; // no filter, the runs compress better unfiltered
+        deflater.reset();
+        idat.start(out);
+        for (int y = 0; y < rows; y++) {
+            bits = matrix.getRow(y, bits);
+            if (y == 0 || !Arrays.equals(bits.getBitArray(), previousBits.getBitArray())) {
+                packRow(columns, scale, rowBytes);
+            }
+            for (int i = 0; i < scale; i++) {
+                compressor.write(row, 0, rowBytes);
+            }
+            BitArray swap = previousBits;
+            previousBits = bits;
+            bits = swap;
+        }
+        compressor.finish();
+        idat.end();
+        writeChunk(out, IEND, header, 0);
+    }
+
+    /**
+     * 写入文件通道，例如FileChannel，写完后不关闭
+     */
+    public void write(BitMatrix matrix, int scale, WritableByteChannel channel) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        write(matrix, scale, out);
+        out.flush();
+    }
+
+    /**
+     * 把白色模块对应的位置1，每个模块scale位
+     */
+    private void packRow(int columns, int scale, int rowBytes) {
+        Arrays.fill(row, 1, rowBytes, (byte) 0);
+        // The bit arrays may be wider than this matrix when reused
+        int x = Math.min(columns, bits.getNextUnset(0));
+        while (x < columns) {
+            int end = Math.min(columns, bits.getNextSet(x));
+            setBits(x * scale, end * scale);
+            x = end < columns ? Math.min(columns, bits.getNextUnset(end)) : columns;
+        }
+    }
+
+    /**
+     * 把像素[from, to)对应的位置1，最高位是最左边的像素
+     */
+    private void setBits(int from, int to) {
+        int first = 1 + (from >> 3);
+        int last = 1 + ((to - 1) >> 3);
+        int headMask = 0xff >>> (from & 7);
+        int tailMask = 0xff << (7 - ((to - 1) & 7)) & 0xff;
+        if (first == last) {
+            row[first] |= headMask & tailMask;
+            return;
+        }
+        row[first] |= headMask;
+        if (last - first > 1) {
+            Arrays.fill(row, first + 1, last, (byte) 0xff);
+        }
+        row[last] |= tailMask;
+    }
+
+    private void writePalette(OutputStream out) throws IOException {
+        byte[] palette = {
+                (byte) (foreground >> 16), (byte) (foreground >> 8), (byte) foreground,
+                (byte) (background >> 16), (byte) (background >> 8), (byte) background};
+        writeChunk(out, PLTE, palette, palette.length);
+        if ((foreground >>> 24) != 0xff || (background >>> 24) != 0xff) {
+            byte[] alpha = {(byte) (foreground >>> 24), (byte) (background >>> 24)};
+            writeChunk(out, TRNS, alpha, alpha.length);
+        }
+    }
+
+    private void writeChunk(OutputStream out, byte[] type, byte[] data, int length) throws IOException {
+        putInt(word, 0, length);
+        out.write(word);
+        out.write(type);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, length);
+        putInt(word, 0, (int) crc.getValue());
+        out.write(word);
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    /**
+     * 把压缩后的数据切成IDAT块写出
+     */
+    private final class IdatOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private OutputStream out;
+        private int count;
+
+        void start(OutputStream out) {
+            this.out = out;
+            count = 0;
+        }
+
+        void end() throws IOException {
+            flushChunk();
+            out = null;
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk(out, IDAT, buffer, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+    }
+
+}
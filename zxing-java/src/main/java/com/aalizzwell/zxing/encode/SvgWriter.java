@@ -0,0 +1,85 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * 把BitMatrix写成SVG
+ * 一个模块为一个单位，相邻的黑色模块合并为矩形，全部矩形写在同一个path中，输出大小只影响width、height属性。
+ * 矩阵最好按每个模块一个像素生成（编码时宽高传0），内存和输出都只与模块数有关，与打印尺寸无关。
+ */
+public final class SvgWriter {
+
+    private SvgWriter() {
+    }
+
+    /**
+     * 不指定尺寸，按容器大小缩放
+     */
+    public static void write(BitMatrix matrix, OutputStream out) throws IOException {
+        write(matrix, 0, 0, null, BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE, out);
+    }
+
+    /**
+     * @param matrix     位矩阵
+     * @param width      输出宽度，小于等于0时不指定
+     * @param height     输出高度，小于等于0时不指定
+     * @param unit       尺寸单位，例如mm、in、px，可为null
+     * @param foreground 黑色模块的颜色
+     * @param background 背景色，完全透明时不画背景
+     * @param out        输出，写完后不关闭
+     */
+    public static void write(BitMatrix matrix, double width, double height, String unit,
+                             int foreground, int background, OutputStream out) throws IOException {
+        int columns = matrix.getWidth();
+        int rows = matrix.getHeight();
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" viewBox=\"0 0 "
+                + columns + " " + rows + "\"");
+        if (width > 0 && height > 0) {
+            String suffix = unit == null ? "" : unit;
+            writer.write(" width=\"" + number(width) + suffix + "\" height=\"" + number(height) + suffix + "\"");
+            // Barcodes are stretched to the requested size, module widths stay proportional
+            writer.write(" preserveAspectRatio=\"none\"");
+        }
+        writer.write(" shape-rendering=\"crispEdges\">\n");
+        if ((background >>> 24) != 0) {
+            writer.write("<rect width=\"" + columns + "\" height=\"" + rows + "\"" + fill(background) + "/>\n");
+        }
+        writer.write("<path" + fill(foreground) + " d=\"");
+        ModuleRects.forEach(matrix, new ModuleRects.RectConsumer() {
+            @Override
+            public void rect(int left, int top, int width, int height) throws IOException {
+                writer.write("M" + left + " " + top + "h" + width + "v" + height + "h-" + width + "z");
+            }
+        });
+        writer.write("\"/>\n</svg>\n");
+        writer.flush();
+    }
+
+    private static String fill(int color) {
+        String fill = String.format(Locale.US, " fill=\"#%06x\"", color & 0xffffff);
+        int alpha = color >>> 24;
+        return alpha == 0xff ? fill : fill + " fill-opacity=\"" + number(alpha / 255.0) + "\"";
+    }
+
+    static String number(double value) {
+        String text = String.format(Locale.US, "%.3f", value);
+        int end = text.length();
+        while (text.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (text.charAt(end - 1) == '.') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+}
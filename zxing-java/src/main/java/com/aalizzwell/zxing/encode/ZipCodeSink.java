@@ -0,0 +1,58 @@
+package com.aalizzwell.zxing.encode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 把批量生成的码写进一个ZIP
+ * PNG本身已经压缩，条目按STORED写入，不再压缩第二次。默认以序号命名，需要按内容命名时重写{@link #entryName}。
+ */
+public class ZipCodeSink implements CodeSink, Closeable {
+
+    private final ZipOutputStream zip;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * @param out 输出，{@link #close()}时关闭
+     */
+    public ZipCodeSink(OutputStream out) {
+        zip = new ZipOutputStream(out);
+    }
+
+    /**
+     * @return 条目名
+     */
+    protected String entryName(int index, String content) {
+        return String.format(Locale.US, "%06d.png", index);
+    }
+
+    @Override
+    public void write(int index, String content, byte[] data, int length) throws IOException {
+        ZipEntry entry = new ZipEntry(entryName(index, content));
+        crc.reset();
+        crc.update(data, 0, length);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(length);
+        entry.setCompressedSize(length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(data, 0, length);
+        zip.closeEntry();
+    }
+
+    @Override
+    public void onEncodeFailed(int index, String content, Throwable e) {
+        // Counted in EncodeStats; subclasses may log it
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+}
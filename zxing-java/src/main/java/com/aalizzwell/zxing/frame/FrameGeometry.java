@@ -0,0 +1,115 @@
+package com.aalizzwell.zxing.frame;
+
+import com.aalizzwell.zxing.decode.RotatedCropLuminanceSource;
+
+/**
+ * 预览帧的几何信息：需要顺时针旋转的角度，以及旋转后坐标系中的扫描区域
+ */
+public final class FrameGeometry {
+
+    private final int rotation;
+    private final int left;
+    private final int top;
+    private final int right;
+    private final int bottom;
+
+    /**
+     * @param rotation 顺时针旋转角度，0、90、180、270
+     * @param left     扫描区域左边界，旋转后的坐标
+     * @param top      扫描区域上边界，旋转后的坐标
+     * @param right    扫描区域右边界（不含），旋转后的坐标
+     * @param bottom   扫描区域下边界（不含），旋转后的坐标
+     */
+    public FrameGeometry(int rotation, int left, int top, int right, int bottom) {
+        this.rotation = rotation;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * 整帧都是扫描区域
+     */
+    public static FrameGeometry fullFrame(int rotation, int width, int height) {
+        boolean swapped = rotation % 180 != 0;
+        return new FrameGeometry(rotation, 0, 0, swapped ? height : width, swapped ? width : height);
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    /**
+     * 从预览帧中取出扫描区域的亮度数据
+     *
+     * @param data        预览帧
+     * @param width       预览帧宽度
+     * @param height      预览帧高度
+     * @param region      只取扫描区域中的这一部分{left, top, right, bottom}，旋转后的坐标；为null或与扫描区域不相交时取整个扫描区域
+     * @param reuseBuffer 上一帧的缓冲区，见{@link RotatedCropLuminanceSource#getBuffer()}
+     * @return 亮度数据，扫描区域为空时返回null
+     */
+    public RotatedCropLuminanceSource buildLuminanceSource(byte[] data, int width, int height,
+                                                           int[] region, byte[] reuseBuffer) {
+        boolean swapped = rotation % 180 != 0;
+        int l = Math.max(0, left);
+        int t = Math.max(0, top);
+        int r = Math.min(swapped ? height : width, right);
+        int b = Math.min(swapped ? width : height, bottom);
+        if (r <= l || b <= t) {
+            return null;
+        }
+        if (region != null && region[0] < r && region[2] > l && region[1] < b && region[3] > t) {
+            l = Math.max(l, region[0]);
+            t = Math.max(t, region[1]);
+            r = Math.min(r, region[2]);
+            b = Math.min(b, region[3]);
+        }
+        return new RotatedCropLuminanceSource(data, width, height, rotation, l, t, r - l, b - t, reuseBuffer);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FrameGeometry)) {
+            return false;
+        }
+        FrameGeometry other = (FrameGeometry) o;
+        return rotation == other.rotation && left == other.left && top == other.top
+                && right == other.right && bottom == other.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = rotation;
+        result = 31 * result + left;
+        result = 31 * result + top;
+        result = 31 * result + right;
+        return 31 * result + bottom;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameGeometry{rotation=" + rotation + ", rect=" + left + ',' + top + ',' + right + ',' + bottom + '}';
+    }
+
+}
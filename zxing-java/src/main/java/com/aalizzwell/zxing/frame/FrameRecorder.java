@@ -0,0 +1,85 @@
+package com.aalizzwell.zxing.frame;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 预览帧录制
+ * 把原始NV21帧连同宽高、旋转角度、扫描区域和时间戳写入文件，用{@link FrameReplayer}回放，在没有真机的情况下复现识别失败
+ * 或者测量解码耗时。
+ * <p>
+ * 文件格式（大端）：文件头为magic、version两个int；之后每帧依次为long时间戳（纳秒，相对第一帧）、int宽、int高、
+ * int旋转角度、int扫描区域left/top/right/bottom、int数据长度，紧跟着NV21数据。
+ * <p>
+ * 写文件在调用线程执行，只用于调试。
+ */
+public final class FrameRecorder implements Closeable {
+
+    /*"ZXFR"*/
+    public static final int MAGIC = 0x5A584652;
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER_SIZE = 8;
+    public static final int FRAME_HEADER_SIZE = 8 + 8 * 4;
+
+    private final DataOutputStream out;
+    private final int maxFrames;
+    private int frameCount;
+    private long firstTimestamp = -1;
+    private boolean closed;
+
+    /**
+     * @param file      录制文件，已存在时覆盖
+     * @param maxFrames 最多录制的帧数
+     */
+    public FrameRecorder(File file, int maxFrames) throws IOException {
+        this.maxFrames = maxFrames;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * 录制一帧，只写入NV21所需的width * height * 3 / 2字节
+     *
+     * @return 是否还在录制，达到最大帧数或已关闭时返回false
+     */
+    public synchronized boolean record(byte[] data, int width, int height, FrameGeometry geometry) throws IOException {
+        if (closed || frameCount >= maxFrames) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (firstTimestamp < 0) {
+            firstTimestamp = now;
+        }
+        int length = Math.min(data.length, width * height * 3 / 2);
+        out.writeLong(now - firstTimestamp);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(geometry.getRotation());
+        out.writeInt(geometry.getLeft());
+        out.writeInt(geometry.getTop());
+        out.writeInt(geometry.getRight());
+        out.writeInt(geometry.getBottom());
+        out.writeInt(length);
+        out.write(data, 0, length);
+        frameCount++;
+        return true;
+    }
+
+    public synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+}
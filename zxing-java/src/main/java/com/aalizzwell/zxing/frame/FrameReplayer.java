@@ -0,0 +1,265 @@
+package com.aalizzwell.zxing.frame;
+
+import com.aalizzwell.zxing.camera.OnPreviewFrameListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回放{@link FrameRecorder}录制的帧
+ * 录制文件以只读方式映射到内存，按录制时的节奏或者尽可能快地把帧送给解码流程。帧数据从映射区复制到固定数量的缓冲区中，
+ * 和相机的缓冲预览一样，接收方用完后必须调用{@link #releaseFrame(byte[])}归还，否则回放会停下来等待。
+ * 每一帧录制时的扫描区域跟着它的缓冲区走，解码时取到的总是这一帧自己的值。尽快回放时{@link #isLossless()}为true，
+ * 接收方等待而不是丢弃来不及解码的帧，每次回放解码的都是同样的帧。
+ * 不依赖Android，可以在JVM上重复运行同一段录制，测量吞吐量和延迟。
+ */
+public final class FrameReplayer implements FrameSource, Closeable {
+
+    public static final int DEFAULT_BUFFER_COUNT = 3;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer mapped;
+    /*每帧头部在文件中的偏移*/
+    private final int[] frameOffsets;
+    private final int bufferCount;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private int allocatedBuffers;
+    private int bufferSize;
+
+    /*每个缓冲区当前装着的帧录制时的扫描区域*/
+    private final Map<byte[], FrameGeometry> geometries =
+            Collections.synchronizedMap(new IdentityHashMap<byte[], FrameGeometry>());
+    private volatile boolean realTime = true;
+    private volatile boolean stopped;
+    private Thread replayThread;
+
+    public FrameReplayer(File recording) throws IOException {
+        this(recording, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * @param recording   录制文件
+     * @param bufferCount 同时在解码流程中的最多帧数
+     */
+    public FrameReplayer(File recording, int bufferCount) throws IOException {
+        this.bufferCount = Math.max(1, bufferCount);
+        freeBuffers = new ArrayBlockingQueue<byte[]>(this.bufferCount);
+        file = new RandomAccessFile(recording, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            frameOffsets = index(mapped);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static int[] index(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < FrameRecorder.FILE_HEADER_SIZE || buffer.getInt(0) != FrameRecorder.MAGIC) {
+            throw new IOException("Not a frame recording");
+        }
+        int version = buffer.getInt(4);
+        if (version != FrameRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        List<Integer> offsets = new ArrayList<Integer>();
+        int offset = FrameRecorder.FILE_HEADER_SIZE;
+        while (offset + FrameRecorder.FRAME_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(offset + FrameRecorder.FRAME_HEADER_SIZE - 4);
+            if (length < 0 || offset + FrameRecorder.FRAME_HEADER_SIZE + length > buffer.limit()) {
+                // Truncated last frame, e.g. the app died while recording
+                break;
+            }
+            offsets.add(offset);
+            offset += FrameRecorder.FRAME_HEADER_SIZE + length;
+        }
+        int[] result = new int[offsets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.get(i);
+        }
+        return result;
+    }
+
+    public int getFrameCount() {
+        return frameOffsets.length;
+    }
+
+    public long getTimestampNanos(int index) {
+        return mapped.getLong(frameOffsets[index]);
+    }
+
+    public int getWidth(int index) {
+        return mapped.getInt(frameOffsets[index] + 8);
+    }
+
+    public int getHeight(int index) {
+        return mapped.getInt(frameOffsets[index] + 12);
+    }
+
+    public FrameGeometry getGeometry(int index) {
+        int offset = frameOffsets[index];
+        return new FrameGeometry(mapped.getInt(offset + 16), mapped.getInt(offset + 20), mapped.getInt(offset + 24),
+                mapped.getInt(offset + 28), mapped.getInt(offset + 32));
+    }
+
+    /**
+     * 把一帧的数据复制出来
+     *
+     * @param reuse 长度足够时复用，可为null
+     */
+    public byte[] readFrame(int index, byte[] reuse) {
+        int offset = frameOffsets[index];
+        int length = mapped.getInt(offset + FrameRecorder.FRAME_HEADER_SIZE - 4);
+        byte[] data = reuse != null && reuse.length >= length ? reuse : new byte[length];
+        ByteBuffer frame = mapped.duplicate();
+        frame.position(offset + FrameRecorder.FRAME_HEADER_SIZE);
+        frame.get(data, 0, length);
+        return data;
+    }
+
+    /**
+     * @param realTime true按录制时的间隔送帧，接收方来不及时可以丢帧；false尽可能快地送帧，不丢帧
+     */
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    /**
+     * 在调用线程上回放一遍全部帧
+     *
+     * @param listener 接收帧，用完后必须调用{@link #releaseFrame(byte[])}
+     * @return 送出的帧数
+     */
+    public int replay(OnPreviewFrameListener listener) throws InterruptedException {
+        stopped = false;
+        return doReplay(listener);
+    }
+
+    private int doReplay(OnPreviewFrameListener listener) throws InterruptedException {
+        long start = System.nanoTime();
+        int delivered = 0;
+        for (int i = 0; i < frameOffsets.length && !stopped; i++) {
+            // A lossless put gives the frame back when interrupted; a thread outliving stopFrames() must not go on
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (realTime) {
+                long delay = getTimestampNanos(i) - (System.nanoTime() - start);
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+            byte[] buffer = obtainBuffer(i);
+            if (buffer == null) {
+                break;
+            }
+            byte[] data = readFrame(i, buffer);
+            if (data != buffer) {
+                // Outgrown, the old buffer leaves circulation
+                geometries.remove(buffer);
+            }
+            geometries.put(data, getGeometry(i));
+            listener.onPreviewFrame(data, getWidth(i), getHeight(i));
+            delivered++;
+        }
+        return delivered;
+    }
+
+    private byte[] obtainBuffer(int index) throws InterruptedException {
+        int length = mapped.getInt(frameOffsets[index] + FrameRecorder.FRAME_HEADER_SIZE - 4);
+        byte[] buffer = freeBuffers.poll();
+        if (buffer == null) {
+            synchronized (this) {
+                if (allocatedBuffers < bufferCount) {
+                    allocatedBuffers++;
+                    bufferSize = Math.max(bufferSize, length);
+                    return new byte[bufferSize];
+                }
+            }
+            while (buffer == null && !stopped) {
+                buffer = freeBuffers.poll(100, TimeUnit.MILLISECONDS);
+            }
+        }
+        return buffer;
+    }
+
+    @Override
+    public void startFrames(final OnPreviewFrameListener listener) {
+        stopFrames();
+        Thread thread = new Thread("FrameReplayer") {
+            @Override
+            public void run() {
+                try {
+                    doReplay(listener);
+                } catch (InterruptedException e) {
+                    // stopped
+                }
+            }
+        };
+        synchronized (this) {
+            replayThread = thread;
+        }
+        stopped = false;
+        thread.start();
+    }
+
+    @Override
+    public void stopFrames() {
+        stopped = true;
+        Thread thread;
+        synchronized (this) {
+            thread = replayThread;
+            replayThread = null;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                // Bounded like the decode threads' shutdown; the thread exits on its own once interrupted
+                thread.join(500L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 扫描区域取这个缓冲区中的帧录制时的值
+     */
+    @Override
+    public FrameGeometry getFrameGeometry(byte[] data, int width, int height) {
+        return geometries.get(data);
+    }
+
+    @Override
+    public boolean isLossless() {
+        return !realTime;
+    }
+
+    @Override
+    public void releaseFrame(byte[] data) {
+        if (data != null) {
+            freeBuffers.offer(data);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopFrames();
+        file.close();
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.aalizzwell.zxing.frame;
+
+import com.aalizzwell.zxing.camera.OnPreviewFrameListener;
+
+/**
+ * 预览帧来源
+ * 解码流程只通过这个接口取帧和归还缓冲区，相机、录制文件的回放都可以作为帧来源。
+ */
+public interface FrameSource {
+
+    /**
+     * 开始送帧，直到调用{@link #stopFrames()}
+     *
+     * @param listener 接收帧，用完后必须调用{@link #releaseFrame(byte[])}
+     */
+    void startFrames(OnPreviewFrameListener listener);
+
+    void stopFrames();
+
+    /**
+     * @param data   帧数据，回放时每一帧的扫描区域可能不同，按缓冲区区分
+     * @param width  帧宽度
+     * @param height 帧高度
+     * @return 这一帧的旋转角度和扫描区域，还不能确定时返回null
+     */
+    FrameGeometry getFrameGeometry(byte[] data, int width, int height);
+
+    /**
+     * @return true时接收方不能丢帧：上一帧还没被取走时，新的帧应该等待而不是覆盖它，例如尽快回放录制文件时
+     */
+    boolean isLossless();
+
+    /**
+     * 归还用完的帧，可在任意线程调用
+     */
+    void releaseFrame(byte[] data);
+
+}
@@ -0,0 +1,10 @@
+package com.aalizzwell.zxing.metrics;
+
+/**
+ * 扫码统计回调，按设定的间隔回调
+ */
+public interface OnScanMetricsListener {
+
+    void onScanMetrics(ScanMetrics.Snapshot snapshot);
+
+}
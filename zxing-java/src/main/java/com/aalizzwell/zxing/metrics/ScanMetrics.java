@@ -0,0 +1,369 @@
+package com.aalizzwell.zxing.metrics;
+
+import com.google.zxing.BarcodeFormat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫码统计
+ * 记录每个阶段的耗时直方图（等待取帧、裁剪旋转、质量过滤、二值化、各reader识别、结果投递），以及解码线程CPU耗时、帧率、
+ * 解码帧率和识别成功率。记录时只有原子操作，不分配内存；快照通过{@link OnScanMetricsListener}定时回调，
+ * 或者用{@link #toJson()}导出后上报。
+ * 不依赖Android，回放录制的帧时同样可用。
+ */
+public final class ScanMetrics {
+
+    /**
+     * 解码的各个阶段
+     */
+    public enum Stage {
+        /*帧放入信箱到被解码线程取走*/
+        FRAME_WAIT,
+        /*裁剪旋转，生成亮度数据*/
+        BUILD_SOURCE,
+        /*帧质量过滤*/
+        QUALITY_GATE,
+        /*二值化*/
+        BINARIZE,
+        /*reader识别，不含二值化*/
+        READER,
+        /*识别成功到主线程收到结果*/
+        DELIVERY,
+        /*一帧从取出到识别结束*/
+        TOTAL
+    }
+
+    private static final BarcodeFormat[] FORMATS = BarcodeFormat.values();
+    /*识别全部格式的reader的下标*/
+    private static final int ALL_FORMATS = FORMATS.length;
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LatencyHistogram[] readers = new LatencyHistogram[ALL_FORMATS + 1];
+
+    private final AtomicLong framesProduced = new AtomicLong();
+    private final AtomicLong framesDecoded = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong deliveryStart = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+
+    private final ThreadCpuClock cpuClock;
+    private volatile OnScanMetricsListener listener;
+    private volatile Executor listenerExecutor;
+    private volatile long intervalNanos;
+    private final AtomicLong lastPublishNanos = new AtomicLong();
+
+    public ScanMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param cpuClock 线程CPU时间，为null时不统计CPU耗时
+     */
+    public ScanMetrics(ThreadCpuClock cpuClock) {
+        this.cpuClock = cpuClock;
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 设置统计回调，在送来帧的线程上回调
+     *
+     * @param listener   回调，为null时取消
+     * @param intervalMs 回调间隔
+     */
+    public void setListener(OnScanMetricsListener listener, long intervalMs) {
+        setListener(listener, intervalMs, null);
+    }
+
+    /**
+     * 设置统计回调
+     *
+     * @param listener   回调，为null时取消
+     * @param intervalMs 回调间隔
+     * @param executor   执行回调的线程，为null时在送来帧的线程上回调
+     */
+    public void setListener(OnScanMetricsListener listener, long intervalMs, Executor executor) {
+        this.intervalNanos = intervalMs * 1000000L;
+        this.listenerExecutor = executor;
+        this.listener = listener;
+        lastPublishNanos.set(System.nanoTime());
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param attempted 单独识别的格式，null表示识别全部格式的reader
+     */
+    public void recordReader(BarcodeFormat attempted, long nanos) {
+        readers[attempted == null ? ALL_FORMATS : attempted.ordinal()].record(nanos);
+        stages[Stage.READER.ordinal()].record(nanos);
+    }
+
+    /**
+     * 相机送来一帧，到了回调间隔时回调快照
+     */
+    public void onFrameProduced() {
+        framesProduced.incrementAndGet();
+        OnScanMetricsListener theListener = listener;
+        if (theListener != null) {
+            long now = System.nanoTime();
+            long last = lastPublishNanos.get();
+            if (now - last >= intervalNanos && lastPublishNanos.compareAndSet(last, now)) {
+                publish(theListener);
+            }
+        }
+    }
+
+    private void publish(final OnScanMetricsListener theListener) {
+        final Snapshot snapshot = snapshot();
+        Executor executor = listenerExecutor;
+        if (executor == null) {
+            theListener.onScanMetrics(snapshot);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (listener == theListener) {
+                    theListener.onScanMetrics(snapshot);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return 当前线程消耗的CPU时间，不支持时返回负数
+     */
+    public long threadCpuTimeNanos() {
+        return cpuClock == null ? -1 : cpuClock.threadCpuTimeNanos();
+    }
+
+    /**
+     * 一帧识别结束
+     *
+     * @param found          是否识别成功
+     * @param threadCpuNanos 解码线程在这一帧上消耗的CPU时间，负数表示未知
+     */
+    public void onFrameDecoded(boolean found, long threadCpuNanos) {
+        framesDecoded.incrementAndGet();
+        if (found) {
+            successes.incrementAndGet();
+        }
+        if (threadCpuNanos > 0) {
+            cpuNanos.addAndGet(threadCpuNanos);
+        }
+    }
+
+    /**
+     * 一帧被质量过滤丢弃，不计入解码帧数，但CPU耗时照常累计
+     *
+     * @param threadCpuNanos 解码线程在这一帧上消耗的CPU时间，负数表示未知
+     */
+    public void onFrameRejected(long threadCpuNanos) {
+        framesRejected.incrementAndGet();
+        if (threadCpuNanos > 0) {
+            cpuNanos.addAndGet(threadCpuNanos);
+        }
+    }
+
+    /**
+     * 识别成功，开始投递结果
+     */
+    public void markDeliveryStart() {
+        deliveryStart.set(System.nanoTime());
+    }
+
+    /**
+     * 主线程收到结果
+     */
+    public void markDelivered() {
+        long start = deliveryStart.getAndSet(0);
+        if (start != 0) {
+            recordStage(Stage.DELIVERY, System.nanoTime() - start);
+        }
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * 清空所有统计，重新计时
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : stages) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : readers) {
+            histogram.reset();
+        }
+        framesProduced.set(0);
+        framesDecoded.set(0);
+        framesRejected.set(0);
+        successes.set(0);
+        cpuNanos.set(0);
+        deliveryStart.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    public Snapshot snapshot() {
+        List<StageStats> stageStats = new ArrayList<StageStats>(stages.length);
+        for (Stage stage : Stage.values()) {
+            stageStats.add(new StageStats(stage.name(), stages[stage.ordinal()]));
+        }
+        List<StageStats> readerStats = new ArrayList<StageStats>();
+        for (int i = 0; i < readers.length; i++) {
+            if (readers[i].getCount() > 0) {
+                readerStats.add(new StageStats(i == ALL_FORMATS ? "ALL_FORMATS" : FORMATS[i].name(), readers[i]));
+            }
+        }
+        return new Snapshot(System.nanoTime() - startNanos, framesProduced.get(), framesDecoded.get(),
+                framesRejected.get(), successes.get(), cpuNanos.get(), stageStats, readerStats);
+    }
+
+    public String toJson() {
+        return snapshot().toJson();
+    }
+
+    /**
+     * 某个阶段的耗时统计
+     */
+    public static final class StageStats {
+
+        public final String name;
+        public final long count;
+        public final long meanNanos;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+
+        StageStats(String name, LatencyHistogram histogram) {
+            this.name = name;
+            count = histogram.getCount();
+            meanNanos = histogram.getMeanNanos();
+            p50Nanos = histogram.getPercentileNanos(50);
+            p90Nanos = histogram.getPercentileNanos(90);
+            p99Nanos = histogram.getPercentileNanos(99);
+            maxNanos = histogram.getMaxNanos();
+        }
+
+        void appendJson(StringBuilder builder) {
+            builder.append("{\"name\":\"").append(name)
+                    .append("\",\"count\":").append(count)
+                    .append(",\"meanNanos\":").append(meanNanos)
+                    .append(",\"p50Nanos\":").append(p50Nanos)
+                    .append(",\"p90Nanos\":").append(p90Nanos)
+                    .append(",\"p99Nanos\":").append(p99Nanos)
+                    .append(",\"maxNanos\":").append(maxNanos)
+                    .append('}');
+        }
+    }
+
+    /**
+     * 某一时刻的统计快照
+     */
+    public static final class Snapshot {
+
+        public final long elapsedNanos;
+        public final long framesProduced;
+        public final long framesDecoded;
+        public final long framesRejected;
+        public final long successes;
+        public final long cpuNanos;
+        public final List<StageStats> stages;
+        public final List<StageStats> readers;
+
+        Snapshot(long elapsedNanos, long framesProduced, long framesDecoded, long framesRejected,
+                 long successes, long cpuNanos, List<StageStats> stages, List<StageStats> readers) {
+            this.elapsedNanos = elapsedNanos;
+            this.framesProduced = framesProduced;
+            this.framesDecoded = framesDecoded;
+            this.framesRejected = framesRejected;
+            this.successes = successes;
+            this.cpuNanos = cpuNanos;
+            this.stages = Collections.unmodifiableList(stages);
+            this.readers = Collections.unmodifiableList(readers);
+        }
+
+        /**
+         * @return 相机帧率
+         */
+        public float getFps() {
+            return perSecond(framesProduced);
+        }
+
+        /**
+         * @return 实际解码的帧率
+         */
+        public float getDecodedFps() {
+            return perSecond(framesDecoded);
+        }
+
+        /**
+         * @return 识别成功的帧占解码帧的比例
+         */
+        public float getSuccessRatio() {
+            return framesDecoded == 0 ? 0 : (float) successes / framesDecoded;
+        }
+
+        /**
+         * @return 解码线程CPU占用，以一个核心为1
+         */
+        public float getCpuLoad() {
+            return elapsedNanos == 0 ? 0 : (float) cpuNanos / elapsedNanos;
+        }
+
+        private float perSecond(long count) {
+            return elapsedNanos == 0 ? 0 : count * 1e9f / elapsedNanos;
+        }
+
+        public String toJson() {
+            StringBuilder builder = new StringBuilder(1024);
+            builder.append("{\"elapsedNanos\":").append(elapsedNanos)
+                    .append(",\"framesProduced\":").append(framesProduced)
+                    .append(",\"framesDecoded\":").append(framesDecoded)
+                    .append(",\"framesRejected\":").append(framesRejected)
+                    .append(",\"successes\":").append(successes)
+                    .append(",\"cpuNanos\":").append(cpuNanos)
+                    .append(",\"fps\":").append(getFps())
+                    .append(",\"decodedFps\":").append(getDecodedFps())
+                    .append(",\"successRatio\":").append(getSuccessRatio())
+                    .append(",\"cpuLoad\":").append(getCpuLoad())
+                    .append(",\"stages\":");
+            appendJson(builder, stages);
+            builder.append(",\"readers\":");
+            appendJson(builder, readers);
+            return builder.append('}').toString();
+        }
+
+        private static void appendJson(StringBuilder builder, List<StageStats> list) {
+            builder.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                list.get(i).appendJson(builder);
+            }
+            builder.append(']');
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.aalizzwell.zxing.metrics;
+
+/**
+ * 解码线程内的耗时累加器
+ * 二值化是在reader内部延迟进行的，{@link TimedBinarizer}把耗时累加到这里，一帧识别结束后取出，从reader耗时中扣除。
+ * 每个解码线程各持有一个，非线程安全。
+ */
+public final class StageClock {
+
+    private long binarizeNanos;
+
+    void addBinarize(long nanos) {
+        binarizeNanos += nanos;
+    }
+
+    /**
+     * @return 上次取出后累计的二值化耗时，取出后清零
+     */
+    public long takeBinarizeNanos() {
+        long nanos = binarizeNanos;
+        binarizeNanos = 0;
+        return nanos;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.aalizzwell.zxing.metrics;
+
+/**
+ * 当前线程CPU时间，Android上用Debug.threadCpuTimeNanos，JVM上用ThreadMXBean
+ */
+public interface ThreadCpuClock {
+
+    /**
+     * @return 当前线程消耗的CPU时间，不支持时返回负数
+     */
+    long threadCpuTimeNanos();
+
+}
@@ -0,0 +1,48 @@
+package com.aalizzwell.zxing.metrics;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * 记录二值化耗时的Binarizer，其余行为与被包装的Binarizer一致
+ */
+public final class TimedBinarizer extends Binarizer {
+
+    private final Binarizer delegate;
+    private final StageClock clock;
+
+    public TimedBinarizer(Binarizer delegate, StageClock clock) {
+        super(delegate.getLuminanceSource());
+        this.delegate = delegate;
+        this.clock = clock;
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBlackRow(y, row);
+        } finally {
+            clock.addBinarize(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBlackMatrix();
+        } finally {
+            clock.addBinarize(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new TimedBinarizer(delegate.createBinarizer(source), clock);
+    }
+
+}
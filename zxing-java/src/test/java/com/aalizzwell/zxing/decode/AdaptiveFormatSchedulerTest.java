@@ -0,0 +1,107 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AdaptiveFormatSchedulerTest {
+
+    private static final int CADENCE = 4;
+
+    @Test
+    public void focusesOnAFormatOnlyAfterEnoughHits() {
+        AdaptiveFormatScheduler scheduler = scheduler(8);
+        assertNull(scheduler.nextFormat());
+        scheduler.record(null, BarcodeFormat.QR_CODE, 1000);
+        assertNull(scheduler.nextFormat());
+        scheduler.record(null, BarcodeFormat.QR_CODE, 1000);
+        assertEquals(BarcodeFormat.QR_CODE, scheduler.nextFormat());
+        assertEquals(2, scheduler.getHits(BarcodeFormat.QR_CODE));
+    }
+
+    @Test
+    public void everyCadenceFrameUsesAllFormats() {
+        AdaptiveFormatScheduler scheduler = scheduler(8);
+        scheduler.record(null, BarcodeFormat.EAN_13, 1000);
+        scheduler.record(null, BarcodeFormat.EAN_13, 1000);
+        for (int frame = 1; frame <= 3 * CADENCE; frame++) {
+            BarcodeFormat next = scheduler.nextFormat();
+            if (frame % CADENCE == 0) {
+                assertNull("frame " + frame, next);
+            } else {
+                assertEquals("frame " + frame, BarcodeFormat.EAN_13, next);
+            }
+        }
+    }
+
+    @Test
+    public void hitsLeaveWithTheWindow() {
+        AdaptiveFormatScheduler scheduler = scheduler(4);
+        scheduler.record(null, BarcodeFormat.QR_CODE, 1000);
+        scheduler.record(null, BarcodeFormat.QR_CODE, 1000);
+        scheduler.record(BarcodeFormat.QR_CODE, null, 1000);
+        scheduler.record(BarcodeFormat.QR_CODE, null, 1000);
+        assertEquals(2, scheduler.getHits(BarcodeFormat.QR_CODE));
+        // The fifth record pushes the first hit out of a window of four
+        scheduler.record(BarcodeFormat.QR_CODE, null, 1000);
+        assertEquals(1, scheduler.getHits(BarcodeFormat.QR_CODE));
+        assertNull(scheduler.nextFormat());
+    }
+
+    @Test
+    public void moreHitsWinThenLowerCost() {
+        AdaptiveFormatScheduler scheduler = scheduler(16);
+        for (int i = 0; i < 3; i++) {
+            scheduler.record(BarcodeFormat.QR_CODE, BarcodeFormat.QR_CODE, 9000);
+            scheduler.record(BarcodeFormat.EAN_13, BarcodeFormat.EAN_13, 1000);
+        }
+        // Equal hits, EAN_13 is cheaper
+        assertEquals(BarcodeFormat.EAN_13, scheduler.nextFormat());
+        scheduler.record(BarcodeFormat.QR_CODE, BarcodeFormat.QR_CODE, 9000);
+        assertEquals(BarcodeFormat.QR_CODE, scheduler.nextFormat());
+    }
+
+    @Test
+    public void averagesCostsPerAttemptedFormat() {
+        AdaptiveFormatScheduler scheduler = scheduler(8);
+        scheduler.record(BarcodeFormat.QR_CODE, null, 1000);
+        scheduler.record(BarcodeFormat.QR_CODE, BarcodeFormat.QR_CODE, 3000);
+        scheduler.record(null, null, 10000);
+        assertEquals(2000, scheduler.getAverageCostNanos(BarcodeFormat.QR_CODE));
+        assertEquals(0, scheduler.getAverageCostNanos(BarcodeFormat.EAN_13));
+        assertEquals(10000, scheduler.getAverageFullSetCostNanos());
+    }
+
+    @Test
+    public void singleFormatOrNoCadenceAlwaysUsesAllFormats() {
+        AdaptiveFormatScheduler single = new AdaptiveFormatScheduler(
+                Collections.singleton(BarcodeFormat.QR_CODE), 8, CADENCE);
+        AdaptiveFormatScheduler noCadence = new AdaptiveFormatScheduler(
+                Arrays.asList(BarcodeFormat.QR_CODE, BarcodeFormat.EAN_13), 8, 1);
+        for (int i = 0; i < 4; i++) {
+            single.record(null, BarcodeFormat.QR_CODE, 1000);
+            noCadence.record(null, BarcodeFormat.QR_CODE, 1000);
+        }
+        for (int i = 0; i < 2 * CADENCE; i++) {
+            assertNull(single.nextFormat());
+            assertNull(noCadence.nextFormat());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyWindow() {
+        scheduler(0);
+    }
+
+    private static AdaptiveFormatScheduler scheduler(int windowSize) {
+        return new AdaptiveFormatScheduler(Arrays.asList(BarcodeFormat.QR_CODE, BarcodeFormat.EAN_13),
+                windowSize, CADENCE);
+    }
+
+}
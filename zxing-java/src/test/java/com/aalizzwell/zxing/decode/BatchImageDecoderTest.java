@@ -0,0 +1,241 @@
+package com.aalizzwell.zxing.decode;
+
+import com.aalizzwell.zxing.encode.BitMatrixRenderer;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 图片用字符串表示："qr:内容"是二维码，"blank"是白图，"missing"读取时抛IOException，
+ * "broken"的亮度数据在识别时抛异常，"none"不是图片
+ */
+public class BatchImageDecoderTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final BatchImageDecoder<String> decoder = new BatchImageDecoder<>(new ImageSourceLoader<String>() {
+        @Override
+        public LuminanceSource load(String image, DecodeBuffers buffers) throws IOException {
+            loads.incrementAndGet();
+            return BatchImageDecoderTest.load(image);
+        }
+    }, DecodeFormatManager.buildImageHints(), 2);
+
+    @After
+    public void tearDown() {
+        decoder.shutdown();
+    }
+
+    @Test
+    public void everyImageIsReportedOnce() throws InterruptedException {
+        List<String> images = Arrays.asList("qr:first", "blank", "missing", "broken", "qr:second", "none");
+        Recorder recorder = new Recorder();
+        BatchImageDecoder<String>.Batch batch = decoder.decode(images, recorder);
+        assertTrue(batch.await(10, TimeUnit.SECONDS));
+        assertTrue(recorder.finished.await(1, TimeUnit.SECONDS));
+
+        assertEquals(images.size(), recorder.outcomes.size());
+        assertEquals("first", recorder.outcomes.get(0));
+        assertEquals("none", recorder.outcomes.get(1));
+        assertEquals("failed FileNotFoundException", recorder.outcomes.get(2));
+        // A reader that throws fails only its own image
+        assertEquals("failed IllegalStateException", recorder.outcomes.get(3));
+        assertEquals("second", recorder.outcomes.get(4));
+        assertEquals("none", recorder.outcomes.get(5));
+        assertEquals(6, recorder.total);
+        assertEquals(2, recorder.decoded);
+        assertEquals(0, recorder.duplicates.get());
+        assertTrue(batch.isDone());
+    }
+
+    @Test
+    public void callbacksRunOnTheGivenExecutor() throws InterruptedException {
+        ExecutorService callbacks = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "callbacks");
+            }
+        });
+        try {
+            Recorder recorder = new Recorder();
+            decoder.decode(Arrays.asList("qr:a", "missing", "qr:b"), recorder, callbacks);
+            assertTrue(recorder.finished.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singleton("callbacks"), recorder.threads.keySet());
+        } finally {
+            callbacks.shutdown();
+        }
+    }
+
+    @Test
+    public void noCallbacksAfterCancel() throws InterruptedException {
+        BatchImageDecoder<String> single = new BatchImageDecoder<>(new ImageSourceLoader<String>() {
+            @Override
+            public LuminanceSource load(String image, DecodeBuffers buffers) throws IOException {
+                return BatchImageDecoderTest.load(image);
+            }
+        }, DecodeFormatManager.buildImageHints(), 1);
+        try {
+            final AtomicInteger callbacks = new AtomicInteger();
+            final BatchImageDecoder<String>.Batch[] batch = new BatchImageDecoder.Batch[1];
+            final CountDownLatch started = new CountDownLatch(1);
+            Recorder recorder = new Recorder() {
+                @Override
+                public void onImageDecoded(int index, String image, Result result, long loadNanos,
+                                           long decodeNanos, List<MultiScaleDecoder.Attempt> attempts) {
+                    callbacks.incrementAndGet();
+                    awaitQuietly(started);
+                    batch[0].cancel();
+                }
+            };
+            batch[0] = single.decode(Collections.nCopies(20, "qr:cancel"), recorder);
+            started.countDown();
+            assertTrue(batch[0].await(10, TimeUnit.SECONDS));
+            assertTrue(batch[0].isCancelled());
+            assertEquals(1, callbacks.get());
+            assertEquals(1, recorder.finished.getCount());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void cachedResultsSkipLoading() throws InterruptedException {
+        decoder.setResultCache(new DecodeResultCache(null), new CacheKeyProvider<String>() {
+            @Override
+            public String getCacheKey(String image) {
+                return image;
+            }
+        });
+        List<String> images = Arrays.asList("qr:cached", "blank");
+        Recorder first = new Recorder();
+        assertTrue(decoder.decode(images, first).await(10, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+
+        Recorder second = new Recorder();
+        assertTrue(decoder.decode(images, second).await(10, TimeUnit.SECONDS));
+        assertTrue(second.finished.await(1, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals("cached", second.outcomes.get(0));
+        assertEquals("none", second.outcomes.get(1));
+        assertEquals(0, second.attempts.get());
+        assertEquals(1, second.decoded);
+    }
+
+    @Test
+    public void emptyBatchFinishesAtOnce() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        BatchImageDecoder<String>.Batch batch = decoder.decode(Collections.<String>emptyList(), recorder);
+        assertTrue(batch.isDone());
+        assertTrue(recorder.finished.await(1, TimeUnit.SECONDS));
+        assertEquals(0, recorder.total);
+        assertFalse(batch.isCancelled());
+    }
+
+    private static LuminanceSource load(String image) throws IOException {
+        if (image.startsWith("qr:")) {
+            try {
+                BitMatrix matrix = new QRCodeWriter().encode(image.substring(3), BarcodeFormat.QR_CODE, 240, 240);
+                return gray(BitMatrixRenderer.toGray(matrix), 240, 240);
+            } catch (WriterException e) {
+                throw new IOException(e);
+            }
+        }
+        switch (image) {
+            case "blank":
+                byte[] white = new byte[200 * 200];
+                Arrays.fill(white, (byte) 255);
+                return gray(white, 200, 200);
+            case "missing":
+                throw new FileNotFoundException(image);
+            case "broken":
+                return new LuminanceSource(200, 200) {
+                    @Override
+                    public byte[] getRow(int y, byte[] row) {
+                        throw new IllegalStateException("corrupt");
+                    }
+
+                    @Override
+                    public byte[] getMatrix() {
+                        throw new IllegalStateException("corrupt");
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    private static LuminanceSource gray(byte[] pixels, int width, int height) {
+        return new PlanarYUVLuminanceSource(pixels, width, height, 0, 0, width, height, false);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Recorder implements OnBatchDecodeListener<String> {
+
+        final Map<Integer, String> outcomes = new ConcurrentHashMap<>();
+        final Map<String, Boolean> threads = new ConcurrentHashMap<>();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile int total;
+        volatile int decoded;
+
+        @Override
+        public void onImageDecoded(int index, String image, Result result, long loadNanos, long decodeNanos,
+                                   List<MultiScaleDecoder.Attempt> attempts) {
+            this.attempts.addAndGet(attempts.size());
+            outcome(index, result == null ? "none" : result.getText());
+        }
+
+        @Override
+        public void onImageFailed(int index, String image, Exception error) {
+            outcome(index, "failed " + error.getClass().getSimpleName());
+        }
+
+        @Override
+        public void onBatchFinished(int total, int decoded, long elapsedNanos) {
+            threads.put(Thread.currentThread().getName(), true);
+            this.total = total;
+            this.decoded = decoded;
+            finished.countDown();
+        }
+
+        private void outcome(int index, String outcome) {
+            threads.put(Thread.currentThread().getName(), true);
+            if (outcomes.put(index, outcome) != null) {
+                duplicates.incrementAndGet();
+            }
+        }
+    }
+
+}
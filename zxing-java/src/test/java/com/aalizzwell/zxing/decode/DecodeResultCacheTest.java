@@ -0,0 +1,186 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 每个用例都关闭后重新打开记录文件，确认结果来自磁盘而不是内存
+ */
+public class DecodeResultCacheTest {
+
+    private static final long TTL_MILLIS = 50;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resultsSurviveReopen() throws IOException {
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        cache.put("a", result("hello", BarcodeFormat.QR_CODE));
+        cache.put("b", result("12345670", BarcodeFormat.EAN_8));
+        cache.put("c", null);
+        cache.close();
+
+        cache = open(file);
+        assertResult(cache.get("a"), "hello", BarcodeFormat.QR_CODE);
+        assertResult(cache.get("b"), "12345670", BarcodeFormat.EAN_8);
+        DecodeResultCache.Entry miss = cache.get("c");
+        assertNotNull(miss);
+        assertFalse(miss.isFound());
+        assertNull(miss.toResult());
+        assertNull(cache.get("d"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void lastRecordOfAKeyWins() throws IOException {
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        cache.put("a", null);
+        cache.put("a", result("first", BarcodeFormat.QR_CODE));
+        cache.put("a", result("second", BarcodeFormat.DATA_MATRIX));
+        cache.close();
+
+        cache = open(file);
+        assertResult(cache.get("a"), "second", BarcodeFormat.DATA_MATRIX);
+        cache.close();
+    }
+
+    @Test
+    public void overwritesAreCompacted() throws IOException {
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, result("value" + i + "-0", BarcodeFormat.QR_CODE));
+        }
+        long liveLength = file.length();
+        for (int round = 1; round <= 100; round++) {
+            for (int i = 0; i < 10; i++) {
+                cache.put("key" + i, result("value" + i + "-" + round, BarcodeFormat.QR_CODE));
+            }
+        }
+        cache.close();
+        // 1010 records were written; without compaction the file would be a hundred times the live data
+        assertTrue(file.length() + " bytes", file.length() < liveLength * 10);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        cache = open(file);
+        for (int i = 0; i < 10; i++) {
+            assertResult(cache.get("key" + i), "value" + i + "-100", BarcodeFormat.QR_CODE);
+        }
+        cache.close();
+    }
+
+    @Test
+    public void negativeResultsExpire() throws Exception {
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        cache.put("miss", null);
+        cache.put("hit", result("kept", BarcodeFormat.QR_CODE));
+        assertNotNull(cache.get("miss"));
+        cache.close();
+
+        Thread.sleep(TTL_MILLIS * 2);
+        cache = open(file);
+        assertNull(cache.get("miss"));
+        // Only results without a code expire
+        assertResult(cache.get("hit"), "kept", BarcodeFormat.QR_CODE);
+        cache.close();
+    }
+
+    @Test
+    public void truncatedLastRecordIsDropped() throws IOException {
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        cache.put("a", result("kept", BarcodeFormat.QR_CODE));
+        cache.close();
+        long length = file.length();
+        // A record length promising more bytes than follow, as if the process died while writing
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(new byte[]{0, 0, 1, 0, 1, 2, 3});
+        } finally {
+            out.close();
+        }
+
+        cache = open(file);
+        assertResult(cache.get("a"), "kept", BarcodeFormat.QR_CODE);
+        cache.put("b", result("appended", BarcodeFormat.QR_CODE));
+        cache.close();
+        assertTrue(file.length() > length);
+
+        cache = open(file);
+        assertResult(cache.get("a"), "kept", BarcodeFormat.QR_CODE);
+        assertResult(cache.get("b"), "appended", BarcodeFormat.QR_CODE);
+        cache.close();
+    }
+
+    @Test
+    public void oversizedRecordStaysInMemoryOnly() throws IOException {
+        StringBuilder text = new StringBuilder(70000);
+        for (int i = 0; i < 70000; i++) {
+            text.append('x');
+        }
+        File file = folder.newFile();
+        DecodeResultCache cache = open(file);
+        cache.put("big", result("old", BarcodeFormat.QR_CODE));
+        cache.put("big", result(text.toString(), BarcodeFormat.QR_CODE));
+        cache.put("small", result("fine", BarcodeFormat.QR_CODE));
+        assertResult(cache.get("big"), text.toString(), BarcodeFormat.QR_CODE);
+        cache.close();
+
+        cache = open(file);
+        // Neither the oversized text nor the stale value before it comes back from disk
+        assertNull(cache.get("big"));
+        assertResult(cache.get("small"), "fine", BarcodeFormat.QR_CODE);
+        cache.close();
+    }
+
+    @Test
+    public void memoryOnlyWithoutFile() {
+        DecodeResultCache cache = new DecodeResultCache(null, 2, 2, TTL_MILLIS);
+        cache.put("a", result("a", BarcodeFormat.QR_CODE));
+        cache.put("b", result("b", BarcodeFormat.QR_CODE));
+        assertResult(cache.get("a"), "a", BarcodeFormat.QR_CODE);
+        // "b" is now the least recently used and makes room for "c"
+        cache.put("c", result("c", BarcodeFormat.QR_CODE));
+        assertNull(cache.get("b"));
+        assertResult(cache.get("c"), "c", BarcodeFormat.QR_CODE);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.close();
+    }
+
+    private static DecodeResultCache open(File file) {
+        return new DecodeResultCache(file, 4, DecodeResultCache.DEFAULT_DISK_ENTRIES, TTL_MILLIS);
+    }
+
+    private static Result result(String text, BarcodeFormat format) {
+        return new Result(text, null, null, format);
+    }
+
+    private static void assertResult(DecodeResultCache.Entry entry, String text, BarcodeFormat format) {
+        assertNotNull(entry);
+        assertTrue(entry.isFound());
+        assertEquals(text, entry.toResult().getText());
+        assertEquals(format, entry.toResult().getBarcodeFormat());
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 96x96的帧每个像素都被采样；锐利的帧是8像素见方的黑白棋盘格，模糊的帧是周期16像素的明暗渐变
+ */
+public class FrameQualityGateTest {
+
+    private static final int SIZE = 96;
+
+    private final FrameQualityGate gate = new FrameQualityGate();
+
+    @Test
+    public void sharpFramesAreAccepted() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(gate.accept(checkerboard(0, 255)));
+        }
+        assertEquals(10, gate.getFramesEvaluated());
+        assertEquals(0, gate.getRejectedBlurred() + gate.getRejectedLowContrast());
+        assertTrue(gate.getAverageSpread() > 200);
+    }
+
+    @Test
+    public void flatFrameIsRejectedAsLowContrast() {
+        byte[] pixels = new byte[SIZE * SIZE];
+        Arrays.fill(pixels, (byte) 128);
+        assertFalse(gate.accept(source(pixels)));
+        assertEquals(1, gate.getRejectedLowContrast());
+        assertEquals(0, gate.getRejectedBlurred());
+    }
+
+    @Test
+    public void blurredFrameIsRejectedAfterSharpOnes() {
+        warmUp();
+        assertFalse(gate.accept(ramp()));
+        assertEquals(1, gate.getRejectedBlurred());
+        assertEquals(0, gate.getRejectedLowContrast());
+    }
+
+    @Test
+    public void oneFrameIsLetThroughAfterConsecutiveRejects() {
+        warmUp();
+        for (int i = 0; i < 4; i++) {
+            assertFalse(gate.accept(ramp()));
+        }
+        assertTrue(gate.accept(ramp()));
+        // And the count starts again
+        assertFalse(gate.accept(ramp()));
+        assertEquals(5, gate.getRejectedBlurred());
+    }
+
+    @Test
+    public void suddenDropInContrastIsRejected() {
+        warmUp();
+        // A spread of 40 clears the fixed minimum but is far below the running average
+        assertFalse(gate.accept(checkerboard(0, 40)));
+        assertEquals(1, gate.getRejectedLowContrast());
+    }
+
+    @Test
+    public void smallCodeOnPlainBackgroundIsAccepted() {
+        warmUp();
+        // A code covering a tenth of the frame: edges are averaged over edge samples only and the
+        // contrast percentiles are wide enough to see it
+        byte[] pixels = new byte[SIZE * SIZE];
+        Arrays.fill(pixels, (byte) 255);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 30; x++) {
+                pixels[(33 + y) * SIZE + 33 + x] = (byte) (((x >> 3) + (y >> 3)) % 2 == 0 ? 0 : 255);
+            }
+        }
+        assertTrue(gate.accept(source(pixels)));
+    }
+
+    @Test
+    public void concurrentWorkersEvaluateIndependently() throws InterruptedException {
+        final boolean[] results = new boolean[4];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    boolean all = true;
+                    for (int i = 0; i < 200; i++) {
+                        all &= gate.accept(checkerboard(0, 255));
+                    }
+                    results[index] = all;
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (boolean result : results) {
+            assertTrue(result);
+        }
+        assertEquals(800, gate.getFramesEvaluated());
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 8; i++) {
+            assertTrue(gate.accept(checkerboard(0, 255)));
+        }
+    }
+
+    private static LuminanceSource checkerboard(int dark, int light) {
+        byte[] pixels = new byte[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                pixels[y * SIZE + x] = (byte) (((x >> 3) + (y >> 3)) % 2 == 0 ? dark : light);
+            }
+        }
+        return source(pixels);
+    }
+
+    /**
+     * 全部亮度都有，但相邻像素只差32
+     */
+    private static LuminanceSource ramp() {
+        byte[] pixels = new byte[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int phase = x % 16;
+                pixels[y * SIZE + x] = (byte) Math.min(255, (phase < 8 ? phase : 16 - phase) * 32);
+            }
+        }
+        return source(pixels);
+    }
+
+    private static LuminanceSource source(byte[] pixels) {
+        return new PlanarYUVLuminanceSource(pixels, SIZE, SIZE, 0, 0, SIZE, SIZE, false);
+    }
+
+}
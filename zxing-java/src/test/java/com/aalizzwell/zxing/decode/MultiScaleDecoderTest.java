@@ -0,0 +1,144 @@
+package com.aalizzwell.zxing.decode;
+
+import com.aalizzwell.zxing.encode.BitMatrixRenderer;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 1600x1200的白底图片，起始短边300时依次按1/4、1/2和原分辨率识别
+ */
+public class MultiScaleDecoderTest {
+
+    private static final int WIDTH = 1600;
+    private static final int HEIGHT = 1200;
+
+    private final MultiScaleOption option = new MultiScaleOption().setStartSize(300).setTimeBudgetMillis(60000);
+    private final MultiScaleDecoder decoder = new MultiScaleDecoder(DecodeFormatManager.buildImageHints(), option);
+
+    @Test
+    public void blankImageGoesThroughEveryStep() {
+        assertNull(decoder.decode(new Canvas().source()));
+        List<MultiScaleDecoder.Attempt> attempts = decoder.getAttempts();
+        assertEquals(3 + 1 + 9, attempts.size());
+
+        assertAttempt(attempts.get(0), 4, 0, 0, WIDTH, HEIGHT, MultiScaleDecoder.HYBRID);
+        assertAttempt(attempts.get(1), 2, 0, 0, WIDTH, HEIGHT, MultiScaleDecoder.HYBRID);
+        assertAttempt(attempts.get(2), 1, 0, 0, WIDTH, HEIGHT, MultiScaleDecoder.HYBRID);
+        assertAttempt(attempts.get(3), 1, 0, 0, WIDTH, HEIGHT, MultiScaleDecoder.GLOBAL_HISTOGRAM);
+        // Half-size regions overlapping by half, the centre one first
+        int[][] origins = {{400, 300}, {0, 300}, {800, 300}, {400, 0}, {0, 0}, {800, 0}, {400, 600}, {0, 600},
+                {800, 600}};
+        for (int i = 0; i < origins.length; i++) {
+            assertAttempt(attempts.get(4 + i), 1, origins[i][0], origins[i][1], WIDTH / 2, HEIGHT / 2,
+                    MultiScaleDecoder.HYBRID);
+        }
+        for (MultiScaleDecoder.Attempt attempt : attempts) {
+            assertFalse(attempt.isFound());
+        }
+    }
+
+    @Test
+    public void fallbacksCanBeTurnedOff() {
+        option.setTryGlobalHistogram(false).setTryRegions(false);
+        assertNull(decoder.decode(new Canvas().source()));
+        assertEquals(3, decoder.getAttempts().size());
+    }
+
+    @Test
+    public void exhaustedBudgetStopsAfterTheFirstAttempt() {
+        option.setTimeBudgetMillis(0);
+        assertNull(decoder.decode(new Canvas().source()));
+        assertEquals(1, decoder.getAttempts().size());
+    }
+
+    @Test
+    public void largeCodeIsFoundAtTheSmallestScale() throws WriterException {
+        Canvas canvas = new Canvas().draw("large", 200, 0, 1200);
+        Result result = decoder.decode(canvas.source());
+        assertNotNull(result);
+        assertEquals("large", result.getText());
+        assertEquals(1, decoder.getAttempts().size());
+        assertEquals(4, decoder.getAttempts().get(0).getScale());
+        assertTrue(decoder.getAttempts().get(0).isFound());
+        assertPointsWithin(result, 200, 0, 1200);
+    }
+
+    @Test
+    public void smallCodeIsFoundAtHigherResolution() throws WriterException {
+        Canvas canvas = new Canvas().draw("small", 1300, 1000, 150);
+        Result result = decoder.decode(canvas.source());
+        assertNotNull(result);
+        assertEquals("small", result.getText());
+        List<MultiScaleDecoder.Attempt> attempts = decoder.getAttempts();
+        assertTrue(attempts.size() > 1);
+        assertFalse(attempts.get(0).isFound());
+        assertTrue(attempts.get(attempts.size() - 1).isFound());
+        // Points come back in the coordinates of the original image whatever step found the code
+        assertPointsWithin(result, 1300, 1000, 150);
+    }
+
+    @Test
+    public void attemptsStartOverOnEachDecode() throws WriterException {
+        decoder.decode(new Canvas().source());
+        decoder.decode(new Canvas().draw("again", 200, 0, 1200).source());
+        assertEquals(1, decoder.getAttempts().size());
+    }
+
+    private static void assertAttempt(MultiScaleDecoder.Attempt attempt, int scale, int left, int top, int width,
+                                      int height, String binarizer) {
+        String message = attempt.toString();
+        assertEquals(message, scale, attempt.getScale());
+        assertEquals(message, left, attempt.getLeft());
+        assertEquals(message, top, attempt.getTop());
+        assertEquals(message, width, attempt.getWidth());
+        assertEquals(message, height, attempt.getHeight());
+        assertEquals(message, binarizer, attempt.getBinarizer());
+    }
+
+    private static void assertPointsWithin(Result result, int left, int top, int size) {
+        for (ResultPoint point : result.getResultPoints()) {
+            assertTrue(point.toString(), point.getX() > left && point.getX() < left + size);
+            assertTrue(point.toString(), point.getY() > top && point.getY() < top + size);
+        }
+    }
+
+    private static final class Canvas {
+
+        private final byte[] pixels = new byte[WIDTH * HEIGHT];
+
+        Canvas() {
+            Arrays.fill(pixels, (byte) 255);
+        }
+
+        Canvas draw(String content, int left, int top, int size) throws WriterException {
+            BitMatrix matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size);
+            byte[] code = BitMatrixRenderer.toGray(matrix);
+            for (int y = 0; y < size; y++) {
+                System.arraycopy(code, y * size, pixels, (top + y) * WIDTH + left, size);
+            }
+            return this;
+        }
+
+        LuminanceSource source() {
+            return new PlanarYUVLuminanceSource(pixels, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false);
+        }
+    }
+
+}
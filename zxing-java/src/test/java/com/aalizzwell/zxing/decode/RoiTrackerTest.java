@@ -0,0 +1,140 @@
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoiTrackerTest {
+
+    private final RoiTracker tracker = new RoiTracker(3);
+    private final RoiTracker.FramePoints points = new RoiTracker.FramePoints(null);
+    private final int[] region = new int[4];
+
+    @Test
+    public void noRegionBeforeAnyPoints() {
+        assertFalse(tracker.getRegion(region));
+        points.begin(0, 0);
+        tracker.update(points, false);
+        assertFalse(tracker.getRegion(region));
+        assertEquals(0, tracker.getTrackedFrames());
+    }
+
+    @Test
+    public void possiblePointsOfAFailedFrameBecomeThePaddedRegion() {
+        // Points are relative to the luminance source, which starts at (100, 50) in the frame
+        points.begin(100, 50);
+        points.foundPossibleResultPoint(new ResultPoint(300, 300));
+        points.foundPossibleResultPoint(new ResultPoint(500, 300));
+        points.foundPossibleResultPoint(new ResultPoint(300, 500));
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        // Box 400..600 x 350..550; half its 200 pixel size is less than the minimum padding of 120
+        assertArrayEquals(new int[]{280, 230, 720, 670}, region);
+        assertEquals(1, tracker.getTrackedFrames());
+    }
+
+    @Test
+    public void largeCodesArePaddedByHalfTheirSize() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(400, 400));
+        points.foundPossibleResultPoint(new ResultPoint(800, 700));
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        assertArrayEquals(new int[]{200, 200, 1000, 900}, region);
+    }
+
+    @Test
+    public void regionIsClampedAtTheFrameOrigin() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(20, 30));
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        assertArrayEquals(new int[]{0, 0, 140, 150}, region);
+    }
+
+    @Test
+    public void decodedResultPointsReplaceTheRegion() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(20, 30));
+        tracker.update(points, false);
+
+        points.begin(10, 10);
+        points.addResult(new Result("x", null, new ResultPoint[]{
+                new ResultPoint(290, 290), new ResultPoint(490, 290), null, new ResultPoint(290, 490)},
+                BarcodeFormat.QR_CODE));
+        tracker.update(points, true);
+        assertTrue(tracker.getRegion(region));
+        assertArrayEquals(new int[]{180, 180, 620, 620}, region);
+    }
+
+    @Test
+    public void regionIsDroppedAfterConsecutiveMisses() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(300, 300));
+        tracker.update(points, false);
+
+        points.begin(0, 0);
+        tracker.update(points, false);
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        // A success in between starts the count again
+        tracker.update(points, true);
+        tracker.update(points, false);
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        tracker.update(points, false);
+        assertFalse(tracker.getRegion(region));
+        assertEquals(1, tracker.getLostCount());
+    }
+
+    @Test
+    public void missWithPointsFollowsTheCode() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(300, 300));
+        tracker.update(points, false);
+
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(600, 500));
+        tracker.update(points, false);
+        assertTrue(tracker.getRegion(region));
+        assertArrayEquals(new int[]{480, 380, 720, 620}, region);
+    }
+
+    @Test
+    public void resetForgetsTheRegion() {
+        points.begin(0, 0);
+        points.foundPossibleResultPoint(new ResultPoint(300, 300));
+        tracker.update(points, false);
+        tracker.reset();
+        assertFalse(tracker.getRegion(region));
+        assertEquals(0, tracker.getLostCount());
+    }
+
+    @Test
+    public void possiblePointsArePassedOnUnchanged() {
+        final List<ResultPoint> received = new ArrayList<>();
+        RoiTracker.FramePoints forwarding = new RoiTracker.FramePoints(new ResultPointCallback() {
+            @Override
+            public void foundPossibleResultPoint(ResultPoint point) {
+                received.add(point);
+            }
+        });
+        ResultPoint point = new ResultPoint(5, 6);
+        forwarding.begin(100, 100);
+        forwarding.foundPossibleResultPoint(point);
+        assertEquals(1, received.size());
+        assertTrue(received.get(0) == point);
+    }
+
+}
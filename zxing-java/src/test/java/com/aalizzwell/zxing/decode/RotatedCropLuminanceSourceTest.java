@@ -0,0 +1,119 @@
+package com.aalizzwell.zxing.decode;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 与先整帧逐像素旋转、再裁剪的结果逐字节比较；180和270度由90度的旋转复合得到，不依赖被测代码的下标公式
+ */
+public class RotatedCropLuminanceSourceTest {
+
+    private static final int WIDTH = 13;
+    private static final int HEIGHT = 7;
+
+    @Test
+    public void rotation0() {
+        checkAllCrops(0);
+    }
+
+    @Test
+    public void rotation90() {
+        checkAllCrops(90);
+    }
+
+    @Test
+    public void rotation180() {
+        checkAllCrops(180);
+    }
+
+    @Test
+    public void rotation270() {
+        checkAllCrops(270);
+    }
+
+    @Test
+    public void rotation90MapsTopLeftToBottomLeftOfSensor() {
+        byte[] frame = frame();
+        RotatedCropLuminanceSource source =
+                new RotatedCropLuminanceSource(frame, WIDTH, HEIGHT, 90, 0, 0, HEIGHT, WIDTH, null);
+        // Turning the sensor image clockwise brings its bottom-left pixel to the top-left corner
+        assertEquals(frame[(HEIGHT - 1) * WIDTH], source.getMatrix()[0]);
+        assertEquals(frame[0], source.getMatrix()[HEIGHT - 1]);
+    }
+
+    @Test
+    public void reusesBufferOfTheSameSize() {
+        byte[] frame = frame();
+        RotatedCropLuminanceSource first =
+                new RotatedCropLuminanceSource(frame, WIDTH, HEIGHT, 90, 1, 2, 4, 5, null);
+        RotatedCropLuminanceSource second =
+                new RotatedCropLuminanceSource(frame, WIDTH, HEIGHT, 270, 1, 2, 4, 5, first.getBuffer());
+        assertEquals(first.getBuffer(), second.getBuffer());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCropOutsideRotatedFrame() {
+        // Rotated by 90 degrees the frame is only HEIGHT pixels wide
+        new RotatedCropLuminanceSource(frame(), WIDTH, HEIGHT, 90, 0, 0, HEIGHT + 1, 1, null);
+    }
+
+    private static void checkAllCrops(int rotation) {
+        byte[] frame = frame();
+        byte[] rotated = frame;
+        int rotatedWidth = WIDTH;
+        int rotatedHeight = HEIGHT;
+        for (int i = 0; i < rotation / 90; i++) {
+            rotated = rotate90(rotated, rotatedWidth, rotatedHeight);
+            int swap = rotatedWidth;
+            rotatedWidth = rotatedHeight;
+            rotatedHeight = swap;
+        }
+        for (int top = 0; top < rotatedHeight; top++) {
+            for (int left = 0; left < rotatedWidth; left++) {
+                for (int height = 1; top + height <= rotatedHeight; height++) {
+                    for (int width = 1; left + width <= rotatedWidth; width++) {
+                        RotatedCropLuminanceSource source = new RotatedCropLuminanceSource(frame, WIDTH, HEIGHT,
+                                rotation, left, top, width, height, null);
+                        assertArrayEquals(rotation + " " + left + "," + top + " " + width + "x" + height,
+                                crop(rotated, rotatedWidth, left, top, width, height), source.getMatrix());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 顺时针旋转90度：旋转后(x, y)处是原图(y, height - 1 - x)处的像素
+     */
+    private static byte[] rotate90(byte[] pixels, int width, int height) {
+        byte[] rotated = new byte[pixels.length];
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < height; x++) {
+                rotated[y * height + x] = pixels[(height - 1 - x) * width + y];
+            }
+        }
+        return rotated;
+    }
+
+    private static byte[] crop(byte[] pixels, int dataWidth, int left, int top, int width, int height) {
+        byte[] cropped = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, (top + y) * dataWidth + left, cropped, y * width, width);
+        }
+        return cropped;
+    }
+
+    /**
+     * Y分量之后跟一段UV数据，和NV21一样
+     */
+    private static byte[] frame() {
+        byte[] frame = new byte[WIDTH * HEIGHT * 3 / 2];
+        new Random(42).nextBytes(frame);
+        return frame;
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchCodeEncoderTest {
+
+    private final BatchCodeEncoder encoder = new BatchCodeEncoder(new EncodeOption().setSize(120, 120), 2);
+
+    @After
+    public void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    public void everyContentIsWrittenOnceAndDecodesBack() throws Exception {
+        List<String> contents = contents(40);
+        Recorder sink = new Recorder();
+        EncodeStats stats = encoder.encode(contents, sink);
+
+        assertEquals(40, stats.getTotal());
+        assertEquals(40, stats.getEncoded());
+        assertEquals(0, stats.getFailed());
+        assertEquals(40, sink.written.size());
+        long bytes = 0;
+        for (int i = 0; i < contents.size(); i++) {
+            byte[] png = sink.written.get(i);
+            bytes += png.length;
+            assertEquals(contents.get(i), decode(png));
+        }
+        assertEquals(bytes, stats.getBytes());
+    }
+
+    @Test
+    public void contentThatCannotBeEncodedIsReportedAndTheRestGoOn() throws Exception {
+        char[] tooLong = new char[8000];
+        Arrays.fill(tooLong, 'x');
+        List<String> contents = Arrays.asList("a", new String(tooLong), "c");
+        Recorder sink = new Recorder();
+        EncodeStats stats = encoder.encode(contents, sink);
+
+        assertEquals(3, stats.getTotal());
+        assertEquals(1, stats.getFailed());
+        assertEquals(Collections.singletonList(1), sink.failed);
+        assertEquals("a", decode(sink.written.get(0)));
+        assertEquals("c", decode(sink.written.get(2)));
+    }
+
+    @Test
+    public void pendingCodesAreCappedPerThread() throws Exception {
+        Recorder sink = new Recorder();
+        sink.delayMillis = 1;
+        encoder.encode(contents(100), sink);
+        assertEquals(100, sink.written.size());
+        // Small codes never outgrow their buffer, so each distinct array is one slot
+        assertTrue(sink.buffers.size() + " slots", sink.buffers.size() <= 2 * 4);
+    }
+
+    @Test
+    public void memoryLimitKeepsAtLeastOneSlot() throws Exception {
+        encoder.setMemoryLimit(0);
+        Recorder sink = new Recorder();
+        EncodeStats stats = encoder.encode(contents(20), sink);
+        assertEquals(20, stats.getEncoded());
+        assertEquals(1, sink.buffers.size());
+    }
+
+    @Test
+    public void contentsAreReadLazily() throws Exception {
+        final int[] read = new int[1];
+        Iterator<String> contents = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return read[0] < 2000;
+            }
+
+            @Override
+            public String next() {
+                return "lazy" + read[0]++;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        final int[] count = new int[1];
+        final int[] maxAhead = new int[1];
+        EncodeStats stats = encoder.encode(contents, new CodeSink() {
+            @Override
+            public void write(int index, String content, byte[] data, int length) {
+                count[0]++;
+                maxAhead[0] = Math.max(maxAhead[0], read[0] - count[0]);
+            }
+
+            @Override
+            public void onEncodeFailed(int index, String content, Throwable e) {
+                fail(content);
+            }
+        });
+        assertEquals(2000, stats.getTotal());
+        assertEquals(2000, count[0]);
+        // No more is read ahead than the slots can hold
+        assertTrue(maxAhead[0] + " read ahead", maxAhead[0] <= 2 * 4);
+    }
+
+    @Test
+    public void sinkFailureStopsTheBatch() throws Exception {
+        final int[] writes = new int[1];
+        try {
+            encoder.encode(contents(50), new CodeSink() {
+                @Override
+                public void write(int index, String content, byte[] data, int length) throws IOException {
+                    if (++writes[0] == 3) {
+                        throw new IOException("disk full");
+                    }
+                }
+
+                @Override
+                public void onEncodeFailed(int index, String content, Throwable e) {
+                }
+            });
+            fail();
+        } catch (IOException expected) {
+            assertEquals("disk full", expected.getMessage());
+        }
+        assertEquals(3, writes[0]);
+        // The encoder is still usable for the next batch
+        assertEquals(5, encoder.encode(contents(5), new Recorder()).getEncoded());
+    }
+
+    private static List<String> contents(int count) {
+        List<String> contents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            contents.add("code-" + i);
+        }
+        return contents;
+    }
+
+    private static String decode(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                gray[y * width + x] = (byte) image.getRGB(x, y);
+            }
+        }
+        LuminanceSource source = new PlanarYUVLuminanceSource(gray, width, height, 0, 0, width, height, false);
+        return new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(source))).getText();
+    }
+
+    /**
+     * 回调都在调用encode的线程上
+     */
+    private static class Recorder implements CodeSink {
+
+        final Map<Integer, byte[]> written = new TreeMap<>();
+        final Map<byte[], Boolean> buffers = new IdentityHashMap<>();
+        final List<Integer> failed = new ArrayList<>();
+        long delayMillis;
+
+        @Override
+        public void write(int index, String content, byte[] data, int length) throws IOException {
+            buffers.put(data, true);
+            if (written.put(index, Arrays.copyOf(data, length)) != null) {
+                fail("index " + index + " written twice");
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void onEncodeFailed(int index, String content, Throwable e) {
+            failed.add(index);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 结果与逐个像素调用{@link BitMatrix#get}的写法逐一比较
+ */
+public class BitMatrixRendererTest {
+
+    private static final int FG = 0xff112233;
+    private static final int BG = 0xffeeddcc;
+
+    @Test
+    public void toPixelsMatchesPerPixelLookup() {
+        // Widths on and off the 32-bit word boundary, with runs of identical rows like real codes
+        for (int width : new int[]{1, 31, 32, 33, 100}) {
+            BitMatrix matrix = blocky(width, 37, 3, width);
+            assertArrayEquals("width " + width, reference(matrix), BitMatrixRenderer.toPixels(matrix, FG, BG));
+        }
+    }
+
+    @Test
+    public void toPixelsReusesALargeEnoughArray() {
+        BitMatrix matrix = blocky(20, 10, 2, 1);
+        int[] reuse = new int[300];
+        Arrays.fill(reuse, 7);
+        int[] pixels = BitMatrixRenderer.toPixels(matrix, FG, BG, reuse);
+        assertSame(reuse, pixels);
+        assertArrayEquals(reference(matrix), Arrays.copyOf(pixels, 200));
+        assertEquals(7, pixels[200]);
+        assertEquals(200, BitMatrixRenderer.toPixels(matrix, FG, BG, new int[199]).length);
+    }
+
+    @Test
+    public void renderRowsMatchesTheSameRowsOfTheWholeImage() {
+        BitMatrix matrix = blocky(45, 40, 4, 2);
+        int[] whole = reference(matrix);
+        int[] band = new int[45 * 9];
+        // A band starting inside a run of identical rows
+        BitMatrixRenderer.renderRows(matrix, 6, 9, FG, BG, band);
+        assertArrayEquals(Arrays.copyOfRange(whole, 45 * 6, 45 * 15), band);
+        BitMatrixRenderer.renderRows(matrix, 39, 1, FG, BG, band);
+        assertArrayEquals(Arrays.copyOfRange(whole, 45 * 39, 45 * 40), Arrays.copyOf(band, 45));
+    }
+
+    @Test
+    public void toGrayMatchesPerPixelLookup() {
+        BitMatrix matrix = blocky(50, 30, 5, 3);
+        byte[] gray = BitMatrixRenderer.toGray(matrix);
+        assertEquals(50 * 30, gray.length);
+        for (int y = 0; y < 30; y++) {
+            for (int x = 0; x < 50; x++) {
+                assertEquals(x + "," + y, matrix.get(x, y) ? 0 : 255, gray[y * 50 + x] & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void scaleToPixelsIsNearestNeighbour() {
+        BitMatrix modules = blocky(21, 21, 1, 4);
+        // Exact multiples, uneven stretches and shrinking
+        int[][] sizes = {{84, 84}, {100, 73}, {21, 21}, {13, 30}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] pixels = BitMatrixRenderer.scaleToPixels(modules, width, height, FG, BG, null);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    boolean set = modules.get(x * 21 / width, y * 21 / height);
+                    assertEquals(width + "x" + height + " at " + x + "," + y, set ? FG : BG, pixels[y * width + x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scaleToPixelsReusesALargeEnoughArray() {
+        BitMatrix modules = blocky(21, 21, 1, 5);
+        int[] reuse = new int[100 * 100];
+        assertSame(reuse, BitMatrixRenderer.scaleToPixels(modules, 90, 90, FG, BG, reuse));
+        assertArrayEquals(BitMatrixRenderer.scaleToPixels(modules, 90, 90, FG, BG, null),
+                Arrays.copyOf(reuse, 90 * 90));
+    }
+
+    /**
+     * 随机模块，每个模块占block行，行内的位也按block成段
+     */
+    private static BitMatrix blocky(int width, int height, int block, long seed) {
+        Random random = new Random(seed);
+        BitMatrix matrix = new BitMatrix(width, height);
+        for (int top = 0; top < height; top += block) {
+            for (int left = 0; left < width; left += block) {
+                if (random.nextBoolean()) {
+                    matrix.setRegion(left, top, Math.min(block, width - left), Math.min(block, height - top));
+                }
+            }
+        }
+        return matrix;
+    }
+
+    private static int[] reference(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int[] pixels = new int[width * matrix.getHeight()];
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = matrix.get(x, y) ? FG : BG;
+            }
+        }
+        return pixels;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 合并出的矩形必须恰好覆盖每个黑色模块一次，不覆盖任何白色模块
+ */
+public class ModuleRectsTest {
+
+    @Test
+    public void randomMatricesAreCoveredExactlyOnce() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+            BitMatrix matrix = new BitMatrix(width, height);
+            // Mix sparse and dense matrices so long runs and isolated modules both occur
+            float density = random.nextFloat();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random.nextFloat() < density) {
+                        matrix.set(x, y);
+                    }
+                }
+            }
+            assertCoveredExactlyOnce(matrix);
+        }
+    }
+
+    @Test
+    public void qrCodeIsCoveredExactlyOnce() throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode("https://github.com/Aallizzwell/zxing", BarcodeFormat.QR_CODE, 0, 0);
+        assertCoveredExactlyOnce(matrix);
+    }
+
+    @Test
+    public void wideMatrixUsesRowBeyondFirstWord() throws IOException {
+        // Wider than one 32-bit word, with a run crossing the word boundary
+        BitMatrix matrix = new BitMatrix(70, 3);
+        matrix.setRegion(20, 0, 30, 3);
+        List<int[]> rects = collect(matrix);
+        assertEquals(1, rects.size());
+        assertEquals(20, rects.get(0)[0]);
+        assertEquals(0, rects.get(0)[1]);
+        assertEquals(30, rects.get(0)[2]);
+        assertEquals(3, rects.get(0)[3]);
+    }
+
+    @Test
+    public void identicalRowsMergeIntoOneRectangle() throws IOException {
+        BitMatrix matrix = new BitMatrix(10, 10);
+        matrix.setRegion(2, 3, 4, 5);
+        matrix.setRegion(7, 0, 1, 10);
+        assertEquals(2, collect(matrix).size());
+    }
+
+    @Test
+    public void emptyMatrixHasNoRectangles() throws IOException {
+        assertEquals(0, collect(new BitMatrix(5, 4)).size());
+    }
+
+    private static void assertCoveredExactlyOnce(BitMatrix matrix) throws IOException {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int[] covered = new int[width * height];
+        for (int[] rect : collect(matrix)) {
+            assertTrue(rect[2] > 0 && rect[3] > 0);
+            assertTrue(rect[0] >= 0 && rect[1] >= 0 && rect[0] + rect[2] <= width && rect[1] + rect[3] <= height);
+            for (int y = rect[1]; y < rect[1] + rect[3]; y++) {
+                for (int x = rect[0]; x < rect[0] + rect[2]; x++) {
+                    covered[y * width + x]++;
+                }
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(x + "," + y + " in " + width + "x" + height,
+                        matrix.get(x, y) ? 1 : 0, covered[y * width + x]);
+            }
+        }
+    }
+
+    private static List<int[]> collect(BitMatrix matrix) throws IOException {
+        final List<int[]> rects = new ArrayList<int[]>();
+        ModuleRects.forEach(matrix, new ModuleRects.RectConsumer() {
+            @Override
+            public void rect(int left, int top, int width, int height) {
+                rects.add(new int[]{left, top, width, height});
+            }
+        });
+        return rects;
+    }
+
+}
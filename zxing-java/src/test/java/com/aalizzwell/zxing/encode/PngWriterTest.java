@@ -0,0 +1,187 @@
+package com.aalizzwell.zxing.encode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 逐块校验CRC、解压IDAT检查数据长度，再用ImageIO解码，与矩阵逐像素比较
+ */
+public class PngWriterTest {
+
+    private final PngWriter writer = new PngWriter();
+
+    @After
+    public void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    public void grayscaleRoundTrip() throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode("PngWriterTest", BarcodeFormat.QR_CODE, 0, 0);
+        for (int scale = 1; scale <= 9; scale += 4) {
+            byte[] png = write(matrix, scale);
+            assertChunks(png, matrix.getWidth() * scale, matrix.getHeight() * scale, 0);
+            assertPixels(matrix, scale, decode(png), BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+        }
+    }
+
+    @Test
+    public void paletteRoundTrip() throws Exception {
+        int foreground = 0xff1a237e;
+        int background = 0xfffff8e1;
+        writer.setColors(foreground, background);
+        BitMatrix matrix = new QRCodeWriter().encode("palette", BarcodeFormat.QR_CODE, 0, 0);
+        byte[] png = write(matrix, 3);
+        assertChunks(png, matrix.getWidth() * 3, matrix.getHeight() * 3, 3);
+        assertPixels(matrix, 3, decode(png), foreground, background);
+    }
+
+    @Test
+    public void randomMatricesOfOddWidths() throws Exception {
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            // Widths that do not fill the last byte of a row
+            BitMatrix matrix = new BitMatrix(1 + random.nextInt(50), 1 + random.nextInt(20));
+            for (int y = 0; y < matrix.getHeight(); y++) {
+                for (int x = 0; x < matrix.getWidth(); x++) {
+                    if (random.nextBoolean()) {
+                        matrix.set(x, y);
+                    }
+                }
+            }
+            int scale = 1 + random.nextInt(3);
+            byte[] png = write(matrix, scale);
+            assertChunks(png, matrix.getWidth() * scale, matrix.getHeight() * scale, 0);
+            assertPixels(matrix, scale, decode(png), BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+        }
+    }
+
+    @Test
+    public void largeImageSpansSeveralIdatChunks() throws Exception {
+        // Random modules barely compress, so the stream is longer than one IDAT chunk
+        Random random = new Random(5);
+        BitMatrix matrix = new BitMatrix(1200, 1200);
+        for (int y = 0; y < 1200; y++) {
+            for (int x = 0; x < 1200; x++) {
+                if (random.nextBoolean()) {
+                    matrix.set(x, y);
+                }
+            }
+        }
+        byte[] png = write(matrix, 1);
+        assertTrue(assertChunks(png, 1200, 1200, 0) > 1);
+        assertPixels(matrix, 1, decode(png), BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+    }
+
+    @Test
+    public void writerIsReusable() throws Exception {
+        BitMatrix first = new QRCodeWriter().encode("first", BarcodeFormat.QR_CODE, 0, 0);
+        BitMatrix second = new QRCodeWriter().encode("second, a little longer", BarcodeFormat.QR_CODE, 0, 0);
+        byte[] expected = write(first, 2);
+        write(second, 5);
+        assertArrayEquals(expected, write(first, 2));
+    }
+
+    private byte[] write(BitMatrix matrix, int scale) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(matrix, scale, out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image);
+        return image;
+    }
+
+    /**
+     * @return IDAT块的个数
+     */
+    private static int assertChunks(byte[] png, int width, int height, int colorType) throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(png));
+        byte[] signature = new byte[8];
+        in.readFully(signature);
+        assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, signature);
+        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        int idatChunks = 0;
+        String type;
+        do {
+            int length = in.readInt();
+            byte[] typeAndData = new byte[4 + length];
+            in.readFully(typeAndData);
+            CRC32 crc = new CRC32();
+            crc.update(typeAndData);
+            type = new String(typeAndData, 0, 4, "US-ASCII");
+            assertEquals(type + " crc", crc.getValue(), in.readInt() & 0xffffffffL);
+            if ("IHDR".equals(type)) {
+                DataInputStream header = new DataInputStream(new ByteArrayInputStream(typeAndData, 4, length));
+                assertEquals(width, header.readInt());
+                assertEquals(height, header.readInt());
+                assertEquals(1, header.readByte());
+                assertEquals(colorType, header.readByte());
+            } else if ("IDAT".equals(type)) {
+                idat.write(typeAndData, 4, length);
+                idatChunks++;
+            }
+        } while (!"IEND".equals(type));
+        assertEquals(0, in.available());
+
+        // One filter byte and one bit per pixel for every row, nothing more
+        Inflater inflater = new Inflater();
+        inflater.setInput(idat.toByteArray());
+        int rowBytes = 1 + (width + 7) / 8;
+        byte[] raw = new byte[rowBytes * height + 1];
+        int inflated = 0;
+        while (!inflater.finished() && inflated < raw.length) {
+            int n = inflater.inflate(raw, inflated, raw.length - inflated);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            inflated += n;
+        }
+        assertTrue(inflater.finished());
+        inflater.end();
+        assertEquals(rowBytes * height, inflated);
+        for (int y = 0; y < height; y++) {
+            assertEquals("filter of row " + y, 0, raw[y * rowBytes]);
+        }
+        return idatChunks;
+    }
+
+    private static void assertPixels(BitMatrix matrix, int scale, BufferedImage image, int foreground, int background) {
+        assertEquals(matrix.getWidth() * scale, image.getWidth());
+        assertEquals(matrix.getHeight() * scale, image.getHeight());
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for (int x = 0; x < row.length; x++) {
+                int expected = matrix.get(x / scale, y / scale) ? foreground : background;
+                if (row[x] != expected) {
+                    throw new AssertionError("pixel " + x + "," + y + " expected " + Integer.toHexString(expected)
+                            + " but was " + Integer.toHexString(row[x]) + " at scale " + scale);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.aalizzwell.zxing.frame;
+
+import com.aalizzwell.zxing.camera.OnPreviewFrameListener;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 每帧数据的第一个字节是帧的序号，回放时据此核对宽高、数据和扫描区域
+ */
+public class FrameReplayerTest {
+
+    private static final int FRAMES = 6;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordedFramesReadBackUnchanged() throws IOException {
+        File file = record(FRAMES);
+        FrameReplayer replayer = new FrameReplayer(file);
+        try {
+            assertEquals(FRAMES, replayer.getFrameCount());
+            long previous = -1;
+            for (int i = 0; i < FRAMES; i++) {
+                assertEquals(width(i), replayer.getWidth(i));
+                assertEquals(height(i), replayer.getHeight(i));
+                assertEquals(geometry(i), replayer.getGeometry(i));
+                assertArrayEquals(data(i), replayer.readFrame(i, null));
+                assertTrue(replayer.getTimestampNanos(i) >= previous);
+                previous = replayer.getTimestampNanos(i);
+            }
+            assertEquals(0, replayer.getTimestampNanos(0));
+        } finally {
+            replayer.close();
+        }
+    }
+
+    @Test
+    public void recorderStopsAtMaxFramesAndWritesOnlyTheNv21Part() throws IOException {
+        File file = folder.newFile();
+        FrameRecorder recorder = new FrameRecorder(file, 2);
+        // A preview buffer may be longer than the frame it holds
+        byte[] oversized = Arrays.copyOf(data(0), data(0).length + 100);
+        assertTrue(recorder.record(oversized, width(0), height(0), geometry(0)));
+        assertTrue(recorder.record(data(1), width(1), height(1), geometry(1)));
+        assertFalse(recorder.record(data(2), width(2), height(2), geometry(2)));
+        assertEquals(2, recorder.getFrameCount());
+        recorder.close();
+        assertFalse(recorder.record(data(2), width(2), height(2), geometry(2)));
+
+        FrameReplayer replayer = new FrameReplayer(file);
+        try {
+            assertEquals(2, replayer.getFrameCount());
+            assertArrayEquals(data(0), replayer.readFrame(0, null));
+        } finally {
+            replayer.close();
+        }
+    }
+
+    @Test
+    public void truncatedLastFrameIsIgnored() throws IOException {
+        File file = record(FRAMES);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 10);
+        } finally {
+            raf.close();
+        }
+        FrameReplayer replayer = new FrameReplayer(file);
+        try {
+            assertEquals(FRAMES - 1, replayer.getFrameCount());
+        } finally {
+            replayer.close();
+        }
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0});
+        } finally {
+            out.close();
+        }
+        try {
+            new FrameReplayer(file).close();
+            fail();
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void losslessReplayKeepsEachFramesOwnGeometry() throws Exception {
+        final FrameReplayer replayer = new FrameReplayer(record(FRAMES), 2);
+        assertFalse(replayer.isLossless());
+        replayer.setRealTime(false);
+        assertTrue(replayer.isLossless());
+        // Frames are released later on another thread, while the next frames reuse the other buffers
+        final BlockingQueue<byte[]> delivered = new LinkedBlockingQueue<>();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+        Thread decoder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < FRAMES; i++) {
+                        byte[] data = delivered.take();
+                        int index = data[0];
+                        Thread.sleep(5);
+                        if (index != i) {
+                            errors.add("frame " + i + " arrived as " + index);
+                        }
+                        FrameGeometry geometry = replayer.getFrameGeometry(data, width(index), height(index));
+                        if (!geometry(index).equals(geometry)) {
+                            errors.add("frame " + index + " has " + geometry);
+                        }
+                        replayer.releaseFrame(data);
+                    }
+                } catch (InterruptedException e) {
+                    errors.add("interrupted");
+                }
+            }
+        };
+        decoder.start();
+        try {
+            int count = replayer.replay(new OnPreviewFrameListener() {
+                @Override
+                public void onPreviewFrame(byte[] data, int width, int height) {
+                    if (width != width(data[0]) || height != height(data[0])) {
+                        errors.add("frame " + data[0] + " is " + width + "x" + height);
+                    }
+                    delivered.add(data);
+                }
+            });
+            assertEquals(FRAMES, count);
+            decoder.join(5000);
+            assertFalse(decoder.isAlive());
+            assertEquals(errors.toString(), 0, errors.size());
+        } finally {
+            replayer.close();
+        }
+    }
+
+    @Test
+    public void stopFramesReturnsWhileBuffersAreHeld() throws Exception {
+        FrameReplayer replayer = new FrameReplayer(record(FRAMES), 2);
+        replayer.setRealTime(false);
+        final CountDownLatch bothBuffersOut = new CountDownLatch(2);
+        try {
+            // Never released, so the replay thread waits for a free buffer
+            replayer.startFrames(new OnPreviewFrameListener() {
+                @Override
+                public void onPreviewFrame(byte[] data, int width, int height) {
+                    bothBuffersOut.countDown();
+                }
+            });
+            assertTrue(bothBuffersOut.await(5, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            replayer.stopFrames();
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        } finally {
+            replayer.close();
+        }
+    }
+
+    private File record(int frames) throws IOException {
+        File file = folder.newFile();
+        FrameRecorder recorder = new FrameRecorder(file, frames);
+        try {
+            for (int i = 0; i < frames; i++) {
+                assertTrue(recorder.record(data(i), width(i), height(i), geometry(i)));
+            }
+        } finally {
+            recorder.close();
+        }
+        return file;
+    }
+
+    private static int width(int index) {
+        return 8 + 2 * index;
+    }
+
+    private static int height(int index) {
+        return 6 + 2 * (index % 3);
+    }
+
+    private static FrameGeometry geometry(int index) {
+        return new FrameGeometry(90 * (index % 4), index, index + 1, index + 4, index + 5);
+    }
+
+    private static byte[] data(int index) {
+        byte[] data = new byte[width(index) * height(index) * 3 / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (index + 31 * i);
+        }
+        data[0] = (byte) index;
+        return data;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.aalizzwell.zxing.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void countsTotalsAndMaximum() {
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(2000);
+        assertEquals(3, histogram.getCount());
+        assertEquals(2400, histogram.getTotalNanos());
+        assertEquals(800, histogram.getMeanNanos());
+        assertEquals(2000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void negativeDurationsCountAsZero() {
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void percentilesAreNeverBelowAndAtMostTwiceTheExactValue() {
+        Random random = new Random(11);
+        long[] values = new long[5000];
+        for (int i = 0; i < values.length; i++) {
+            // Spread over several orders of magnitude like real stage timings
+            values[i] = 1 + (long) Math.pow(10, 2 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long approximate = histogram.getPercentileNanos(percentile);
+            assertTrue(percentile + ": " + approximate + " < " + exact, approximate >= exact);
+            assertTrue(percentile + ": " + approximate + " > 2 * " + exact, approximate < 2 * exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void percentileIsCappedAtTheMaximum() {
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1000);
+        }
+        // 1000 falls in [512, 1024), whose upper bound is never reached
+        assertEquals(1000, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void veryLongDurationsStayInRange() {
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void concurrentRecordsAreNotLost() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final long nanos = 1000 * (t + 1);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(nanos);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, histogram.getCount());
+        assertEquals(10000L * 1000 * 36, histogram.getTotalNanos());
+        assertEquals(8000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        histogram.record(5000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        histogram.record(10);
+        assertEquals(10, histogram.getPercentileNanos(99));
+    }
+
+}
@@ -22,6 +22,7 @@ import com.google.zxing.Result;
 import com.aalizzwell.zxing.view.ViewfinderResultPointCallback;
 import com.aalizzwell.zxing.camera.CameraManager;
 import com.aalizzwell.zxing.common.Constant;
+import com.aalizzwell.zxing.decode.DecodeDispatcher;
 import com.aalizzwell.zxing.decode.DecodeThread;
 
 import android.graphics.Bitmap;
@@ -39,7 +40,7 @@ public final class CaptureActivityHandler extends Handler {
     private static final String TAG = CaptureActivityHandler.class.getSimpleName();
 
     private final CaptureHelper captureHelper;
-    private final DecodeThread decodeThread;
+    private final DecodeDispatcher decodeDispatcher;
     private State state;
     private final CameraManager cameraManager;
     private final OnHandleDecodeListener onCaptureListener;
@@ -53,9 +54,9 @@ public final class CaptureActivityHandler extends Handler {
 
     CaptureActivityHandler(CaptureHelper captureHelper, CameraManager cameraManager, OnHandleDecodeListener onCaptureListener) {
         this.captureHelper = captureHelper;
-        decodeThread = new DecodeThread(captureHelper, new ViewfinderResultPointCallback(
-                captureHelper.getViewfinderView()));
-        decodeThread.start();
+        decodeDispatcher = new DecodeDispatcher(captureHelper, cameraManager, new ViewfinderResultPointCallback(
+                captureHelper.getViewfinderView()), captureHelper.initOption.getDecodeThreadCount());
+        decodeDispatcher.start();
         state = State.SUCCESS;
         this.onCaptureListener = onCaptureListener;
         // Start ourselves capturing previews and decoding.
@@ -74,7 +75,9 @@ public final class CaptureActivityHandler extends Handler {
                 break;
             // 解码成功
             case Constant.DECODE_SUCCEEDED:
+                captureHelper.getScanMetrics().markDelivered();
                 state = State.SUCCESS;
+                cameraManager.stopPreviewFrames();
                 Bundle bundle = message.getData();
                 Bitmap barcode = null;
                 float scaleFactor = 1.0f;
@@ -89,12 +92,6 @@ public final class CaptureActivityHandler extends Handler {
                 }
                 onCaptureListener.onHandleDecode((Result) message.obj, barcode, scaleFactor);
                 break;
-            //解码失败
-            case Constant.DECODE_FAILED:
-                // We're decoding as fast as possible, so when one decode fails, start another.
-                state = State.PREVIEW;
-                cameraManager.requestPreviewFrame(decodeThread.getHandler(), Constant.DECODE);
-                break;
         }
     }
 
@@ -103,15 +100,9 @@ public final class CaptureActivityHandler extends Handler {
      */
     void quitSynchronously() {
         state = State.DONE;
+        cameraManager.stopPreviewFrames();
         cameraManager.stopPreview();
-        Message quit = Message.obtain(decodeThread.getHandler(), Constant.QUIT);
-        quit.sendToTarget();
-        try {
-            // Wait at most half a second; should be enough time, and onPause() will timeout quickly
-            decodeThread.join(500L);
-        } catch (InterruptedException e) {
-            // continue
-        }
+        decodeDispatcher.quitSynchronously();
 
         // Be absolutely sure we don't send any queued up messages
         //确保不会发送任何队列消息
@@ -122,7 +113,9 @@ public final class CaptureActivityHandler extends Handler {
     void restartPreviewAndDecode() {
         if (state == State.SUCCESS) {
             state = State.PREVIEW;
-            cameraManager.requestPreviewFrame(decodeThread.getHandler(), Constant.DECODE);
+            // Frames now stream continuously; the dispatcher keeps every decode thread busy with the newest one
+            decodeDispatcher.resume();
+            cameraManager.startPreviewFrames(decodeDispatcher);
             captureHelper.getViewfinderView().drawViewfinder();
         }
     }
@@ -1,7 +1,10 @@
 package com.aalizzwell.zxing.android;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v7.widget.AppCompatImageView;
 import android.support.v7.widget.LinearLayoutCompat;
 import android.view.SurfaceView;
@@ -15,9 +18,17 @@ import com.aalizzwell.zxing.view.ViewfinderView;
 import com.google.zxing.Result;
 import com.maizi.zxing.R;
 import com.aalizzwell.zxing.common.Constant;
-import com.aalizzwell.zxing.decode.DecodeImgCallback;
-import com.aalizzwell.zxing.decode.DecodeImgThread;
-import com.aalizzwell.zxing.utils.ImageUtil;
+import com.aalizzwell.zxing.decode.BatchImageDecoder;
+import com.aalizzwell.zxing.decode.BitmapImageLoader;
+import com.aalizzwell.zxing.decode.DecodeFormatManager;
+import com.aalizzwell.zxing.decode.DecodeResultCache;
+import com.aalizzwell.zxing.decode.MultiScaleDecoder;
+import com.aalizzwell.zxing.decode.OnBatchDecodeListener;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 public class CaptureAlbumActivity extends BaseCaptureActivity implements View.OnClickListener, OnResultCallback {
 
@@ -26,6 +37,11 @@ public class CaptureAlbumActivity extends BaseCaptureActivity implements View.On
     public boolean isOpen = false;
     CaptureHelper captureHelper;
     private InitOption initOption;
+    /*相册图片的识别结果，进程内共用*/
+    private static DecodeResultCache resultCache;
+    /*识别相册图片，第一次选图时创建*/
+    private BatchImageDecoder<Uri> imageDecoder;
+    private BatchImageDecoder<Uri>.Batch imageBatch;
 
     @Override
     public void onClick(View view) {
@@ -127,21 +143,67 @@ public class CaptureAlbumActivity extends BaseCaptureActivity implements View.On
     public void onActivityResult(int requestCode, int resultCode, Intent intent) {
         super.onActivityResult(requestCode, resultCode, intent);
         if (requestCode == Constant.REQUEST_IMAGE && resultCode == RESULT_OK) {
-            final String path = ImageUtil.getImageAbsolutePath(this, intent.getData());
-            new DecodeImgThread(path, new DecodeImgCallback() {
-                @Override
-                public void onImageDecodeSuccess(Result result) {
-                    onResultCallback(result);
-                }
+            decodeImage(intent.getData());
+        }
+    }
 
-                @Override
-                public void onImageDecodeFailed() {
+    private void decodeImage(Uri uri) {
+        if (imageDecoder == null) {
+            BitmapImageLoader loader = new BitmapImageLoader(this);
+            imageDecoder = new BatchImageDecoder<>(loader, DecodeFormatManager.buildImageHints(), 1);
+            imageDecoder.setResultCache(getResultCache(), loader);
+        }
+        if (imageBatch != null) {
+            imageBatch.cancel();
+        }
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        imageBatch = imageDecoder.decode(Collections.singletonList(uri), new OnBatchDecodeListener<Uri>() {
+            @Override
+            public void onImageDecoded(int index, Uri image, Result result, long loadNanos, long decodeNanos,
+                                       List<MultiScaleDecoder.Attempt> attempts) {
+                if (result != null) {
+                    onResultCallback(result);
+                } else {
                     Toast.makeText(CaptureAlbumActivity.this, R.string.scan_failed_tip, Toast.LENGTH_SHORT).show();
                 }
-            }).run();
+            }
+
+            @Override
+            public void onImageFailed(int index, Uri image, Exception error) {
+                Toast.makeText(CaptureAlbumActivity.this, R.string.scan_failed_tip, Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onBatchFinished(int total, int decoded, long elapsedNanos) {
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainHandler.post(command);
+            }
+        });
+    }
+
+    private DecodeResultCache getResultCache() {
+        synchronized (CaptureAlbumActivity.class) {
+            if (resultCache == null) {
+                // The file is opened lazily on the decode thread
+                resultCache = new DecodeResultCache(new File(getApplicationContext().getCacheDir(), "decode_results"));
+            }
+            return resultCache;
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        if (imageBatch != null) {
+            imageBatch.cancel();
+        }
+        if (imageDecoder != null) {
+            imageDecoder.shutdown();
+        }
+        super.onDestroy();
+    }
 
     @Override
     public void onPointerCaptureChanged(boolean hasCapture) {
@@ -7,7 +7,9 @@ import android.content.pm.FeatureInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
+import android.os.Debug;
 import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.*;
 import com.google.zxing.Result;
@@ -15,9 +17,14 @@ import com.aalizzwell.zxing.AmbientLightManager;
 import com.maizi.zxing.R;
 import com.aalizzwell.zxing.bean.InitOption;
 import com.aalizzwell.zxing.camera.CameraManager;
+import com.aalizzwell.zxing.camera.OnCameraOpenListener;
+import com.aalizzwell.zxing.metrics.OnScanMetricsListener;
+import com.aalizzwell.zxing.metrics.ScanMetrics;
+import com.aalizzwell.zxing.metrics.ThreadCpuClock;
 import com.aalizzwell.zxing.view.ViewfinderView;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 public class CaptureHelper implements ActivityLifecycle {
 
@@ -38,6 +45,12 @@ public class CaptureHelper implements ActivityLifecycle {
     private CaptureActivityHandler captureHandler;
     private OnHandleDecodeListener onHandleDecodeListener;
     private boolean hasSurface;
+    private final ScanMetrics scanMetrics = new ScanMetrics(new ThreadCpuClock() {
+        @Override
+        public long threadCpuTimeNanos() {
+            return Debug.threadCpuTimeNanos();
+        }
+    });
 
     CaptureHelper(Activity activity, InitOption initOption, OnResultCallback onResultCallback, SurfaceView surfaceView, ViewfinderView viewfinderView) {
         this.activity = activity;
@@ -118,22 +131,31 @@ public class CaptureHelper implements ActivityLifecycle {
             Log.w(TAG, "initCamera() while already open -- late SurfaceView surfaceCallback?");
             return;
         }
-        try {
-            // 打开Camera硬件设备
-            cameraManager.openDriver(surfaceHolder);
-            // 创建一个handler来打开预览，并抛出一个运行时异常
-            if (captureHandler == null) {
-                captureHandler = new CaptureActivityHandler(this, cameraManager, onHandleDecodeListener);
+        // 在相机线程中打开Camera硬件设备，完成后回到主线程
+        final CameraManager theCameraManager = cameraManager;
+        theCameraManager.openDriver(surfaceHolder, new OnCameraOpenListener() {
+            @Override
+            public void onCameraOpened() {
+                // onPause() may have closed the camera while it was opening
+                if (theCameraManager != cameraManager || !theCameraManager.isOpen()) {
+                    return;
+                }
+                // 创建一个handler来打开预览
+                if (captureHandler == null) {
+                    captureHandler = new CaptureActivityHandler(CaptureHelper.this, theCameraManager, onHandleDecodeListener);
+                }
             }
-        } catch (IOException ioe) {
-            Log.w(TAG, ioe);
-            displayFrameworkBugMessageAndExit();
-        } catch (RuntimeException e) {
-            // Barcode Scanner has seen crashes in the wild of this variety:
-            // java.?lang.?RuntimeException: Fail to connect to camera service
-            Log.w(TAG, "Unexpected error initializing camera", e);
-            displayFrameworkBugMessageAndExit();
-        }
+
+            @Override
+            public void onCameraOpenFailed(Exception e) {
+                if (e instanceof IOException) {
+                    Log.w(TAG, e);
+                } else {
+                    Log.w(TAG, "Unexpected error initializing camera", e);
+                }
+                displayFrameworkBugMessageAndExit();
+            }
+        });
     }
 
     @Override
@@ -178,6 +200,29 @@ public class CaptureHelper implements ActivityLifecycle {
         return cameraManager;
     }
 
+    /**
+     * @return 扫码统计，可设置回调或导出JSON上报
+     */
+    public ScanMetrics getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * 在主线程定时回调扫码统计
+     *
+     * @param listener   回调，为null时取消
+     * @param intervalMs 回调间隔
+     */
+    public void setScanMetricsListener(OnScanMetricsListener listener, long intervalMs) {
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        scanMetrics.setListener(listener, intervalMs, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainHandler.post(command);
+            }
+        });
+    }
+
     public Handler getCaptureHandler() {
         return captureHandler;
     }
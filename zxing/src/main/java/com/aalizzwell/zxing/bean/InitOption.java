@@ -22,6 +22,22 @@ public class InitOption implements Serializable {
     private boolean continuousScan = false;
     //连扫时，是否自动重置预览和解码器，默认自动重置
     private boolean autoRestartPreviewAndDecode = true;
+    //使用预分配的缓冲区接收预览帧，避免每帧分配内存
+    private boolean bufferedPreview = true;
+    //解码线程数，默认为CPU核心数
+    private int decodeThreadCount = Runtime.getRuntime().availableProcessors();
+    //自适应格式调度：常用格式单独识别，每隔多少帧识别一次全部格式，小于等于1时关闭
+    private int adaptiveFormatCadence = 8;
+    //金字塔解码：高分辨率预览先缩小识别，失败后只对可疑区域按原分辨率识别
+    private boolean pyramidDecode = true;
+    //识别区域跟踪：只识别码上次出现的位置附近，连续多少帧没识别出来后恢复识别整个扫描区域，0关闭
+    private int roiMaxMisses = 5;
+    //帧质量过滤：解码前丢弃模糊、对比度不足的帧
+    private boolean frameQualityGate = true;
+    //录制预览帧的文件路径，用于回放复现问题，null不录制
+    private String recordFramesPath;
+    //最多录制的帧数
+    private int recordMaxFrames = 300;
     //四个角的颜色
     private int frameCornerColor = R.color.frame_corner_color;
     //扫描框颜色
@@ -96,6 +112,46 @@ public class InitOption implements Serializable {
         return this;
     }
 
+    public InitOption setBufferedPreview(boolean bufferedPreview) {
+        this.bufferedPreview = bufferedPreview;
+        return this;
+    }
+
+    public InitOption setDecodeThreadCount(int decodeThreadCount) {
+        this.decodeThreadCount = Math.max(1, decodeThreadCount);
+        return this;
+    }
+
+    public InitOption setAdaptiveFormatCadence(int adaptiveFormatCadence) {
+        this.adaptiveFormatCadence = adaptiveFormatCadence;
+        return this;
+    }
+
+    public InitOption setPyramidDecode(boolean pyramidDecode) {
+        this.pyramidDecode = pyramidDecode;
+        return this;
+    }
+
+    public InitOption setRoiMaxMisses(int roiMaxMisses) {
+        this.roiMaxMisses = roiMaxMisses;
+        return this;
+    }
+
+    public InitOption setFrameQualityGate(boolean frameQualityGate) {
+        this.frameQualityGate = frameQualityGate;
+        return this;
+    }
+
+    public InitOption setRecordFramesPath(String recordFramesPath) {
+        this.recordFramesPath = recordFramesPath;
+        return this;
+    }
+
+    public InitOption setRecordMaxFrames(int recordMaxFrames) {
+        this.recordMaxFrames = recordMaxFrames;
+        return this;
+    }
+
     public InitOption setFullScreenScan(boolean fullScreenScan) {
         this.fullScreenScan = fullScreenScan;
         return this;
@@ -140,6 +196,38 @@ public class InitOption implements Serializable {
         return autoRestartPreviewAndDecode;
     }
 
+    public boolean isBufferedPreview() {
+        return bufferedPreview;
+    }
+
+    public int getDecodeThreadCount() {
+        return decodeThreadCount;
+    }
+
+    public int getAdaptiveFormatCadence() {
+        return adaptiveFormatCadence;
+    }
+
+    public boolean isPyramidDecode() {
+        return pyramidDecode;
+    }
+
+    public int getRoiMaxMisses() {
+        return roiMaxMisses;
+    }
+
+    public boolean isFrameQualityGate() {
+        return frameQualityGate;
+    }
+
+    public String getRecordFramesPath() {
+        return recordFramesPath;
+    }
+
+    public int getRecordMaxFrames() {
+        return recordMaxFrames;
+    }
+
     public int getFrameCornerColor() {
         return frameCornerColor;
     }
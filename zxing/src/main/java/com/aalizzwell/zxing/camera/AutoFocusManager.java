@@ -1,24 +1,25 @@
 package com.aalizzwell.zxing.camera;
 
 import android.hardware.Camera;
-import android.os.AsyncTask;
+import android.os.Handler;
 import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.RejectedExecutionException;
 
 /*
  * 聚焦管理
+ * 对焦回调和下一次对焦都在相机线程执行
  * */
 public class AutoFocusManager implements Camera.AutoFocusCallback {
 
     private static final String TAG = AutoFocusManager.class.getSimpleName();
 
     private final Camera camera;
+    private final Handler handler;
     private final boolean useAutoFocus;
     private static final Collection<String> FOCUS_MODES_CALLING_AF;
-    private AsyncTask<?, ?, ?> outstandingTask;
+    private boolean outstandingTask;
     private boolean stopped;
     private boolean focusing;
     /*聚焦间隔*/
@@ -30,8 +31,16 @@ public class AutoFocusManager implements Camera.AutoFocusCallback {
         FOCUS_MODES_CALLING_AF.add(Camera.Parameters.FOCUS_MODE_MACRO);
     }
 
-    AutoFocusManager(Camera camera) {
+    private final Runnable autoFocusTask = new Runnable() {
+        @Override
+        public void run() {
+            start();
+        }
+    };
+
+    AutoFocusManager(Camera camera, Handler handler) {
         this.camera = camera;
+        this.handler = handler;
         useAutoFocus = true;
         start();
     }
@@ -43,20 +52,18 @@ public class AutoFocusManager implements Camera.AutoFocusCallback {
     }
 
     private synchronized void autoFocusAgainLater() {
-        if (!stopped && outstandingTask == null) {
-            AutoFocusTask newTask = new AutoFocusTask();
-            try {
-                newTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-                outstandingTask = newTask;
-            } catch (RejectedExecutionException ree) {
-                Log.w(TAG, "Could not request auto focus", ree);
+        if (!stopped && !outstandingTask) {
+            if (handler.postDelayed(autoFocusTask, AUTO_FOCUS_INTERVAL_MS)) {
+                outstandingTask = true;
+            } else {
+                Log.w(TAG, "Could not request auto focus");
             }
         }
     }
 
      synchronized void start() {
         if (useAutoFocus) {
-            outstandingTask = null;
+            cancelOutstandingTask();
             if (!stopped && !focusing) {
                 try {
                     camera.autoFocus(this);
@@ -73,11 +80,9 @@ public class AutoFocusManager implements Camera.AutoFocusCallback {
 
 
     private synchronized void cancelOutstandingTask() {
-        if (outstandingTask != null) {
-            if (outstandingTask.getStatus() != AsyncTask.Status.FINISHED) {
-                outstandingTask.cancel(true);
-            }
-            outstandingTask = null;
+        if (outstandingTask) {
+            handler.removeCallbacks(autoFocusTask);
+            outstandingTask = false;
         }
     }
 
@@ -95,18 +100,4 @@ public class AutoFocusManager implements Camera.AutoFocusCallback {
         }
     }
 
-    private final class AutoFocusTask extends AsyncTask<Object, Object, Object> {
-        @Override
-        protected Object doInBackground(Object... voids) {
-            try {
-                Thread.sleep(AUTO_FOCUS_INTERVAL_MS);
-            } catch (InterruptedException e) {
-                // continue
-            }
-            start();
-            return null;
-        }
-    }
-
-
 }
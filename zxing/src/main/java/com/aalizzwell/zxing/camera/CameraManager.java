@@ -5,21 +5,35 @@ import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
 import android.util.Log;
 import android.view.SurfaceHolder;
 
-import com.google.zxing.PlanarYUVLuminanceSource;
 import com.maizi.zxing.R;
 import com.aalizzwell.zxing.bean.InitOption;
 import com.aalizzwell.zxing.camera.open.OpenCamera;
 import com.aalizzwell.zxing.camera.open.OpenCameraInterface;
+import com.aalizzwell.zxing.decode.RotatedCropLuminanceSource;
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.aalizzwell.zxing.frame.FrameSource;
 
 import java.io.IOException;
 
-public class CameraManager {
+/**
+ * 相机管理
+ * Camera在专用的相机线程中打开，预览帧和对焦回调都在该线程执行；打开、预览、闪光灯、缩放、对焦和关闭等命令
+ * 都投递到相机线程异步执行，不阻塞UI线程。
+ */
+public class CameraManager implements FrameSource {
 
     private static final String TAG = CameraManager.class.getSimpleName();
 
+    /*关闭相机时最长等待时间*/
+    private static final long CLOSE_TIMEOUT_MS = 1000L;
+
+    private final HandlerThread cameraThread;
+    private final Handler cameraHandler;
     private OpenCamera camera;
     private final Context context;
     private Rect framingRect;
@@ -39,38 +53,87 @@ public class CameraManager {
      * clear the handler so it will only receive one message.
      */
     private final PreviewCallback previewCallback;
+    /**
+     * Non-null when preview frames are delivered into pre-allocated buffers, see
+     * {@link InitOption#isBufferedPreview()}.
+     */
+    private final PreviewBufferPool previewBufferPool;
     private InitOption initOption;
 
     public CameraManager(Context context, InitOption initOption) {
         this.context = context;
         this.configManager = new CameraConfigurationManager(context);
-        previewCallback = new PreviewCallback(configManager);
         this.initOption = initOption;
+        // Every decode worker may hold one frame while the camera fills the next
+        int bufferCount = Math.max(PreviewBufferPool.DEFAULT_BUFFER_COUNT, initOption.getDecodeThreadCount() + 2);
+        previewBufferPool = initOption.isBufferedPreview() ? new PreviewBufferPool(bufferCount) : null;
+        previewCallback = new PreviewCallback(configManager, previewBufferPool);
+        cameraThread = new HandlerThread("CameraThread");
+        cameraThread.start();
+        cameraHandler = new Handler(cameraThread.getLooper());
+    }
+
+    /**
+     * Opens the camera driver on the camera thread and initializes the hardware parameters. The camera
+     * delivers preview frames and auto focus callbacks on that thread from then on.
+     *
+     * @param holder   The surface object which the camera will draw preview frames into.
+     * @param listener Notified on the calling thread once the camera is open or failed to open.
+     */
+    public void openDriver(final SurfaceHolder holder, final OnCameraOpenListener listener) {
+        Looper callerLooper = Looper.myLooper();
+        final Handler callerHandler = new Handler(callerLooper != null ? callerLooper : Looper.getMainLooper());
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Exception failure = null;
+                try {
+                    doOpenDriver(holder);
+                } catch (IOException | RuntimeException e) {
+                    // Barcode Scanner has seen crashes in the wild of this variety:
+                    // java.?lang.?RuntimeException: Fail to connect to camera service
+                    failure = e;
+                }
+                final Exception theFailure = failure;
+                callerHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (theFailure == null) {
+                            listener.onCameraOpened();
+                        } else {
+                            listener.onCameraOpenFailed(theFailure);
+                        }
+                    }
+                });
+            }
+        });
     }
 
     /**
-     * Opens the camera driver and initializes the hardware parameters.
+     * Runs on the camera thread.
      *
-     * @param holder The surface object which the camera will draw preview frames into.
      * @throws IOException Indicates the camera driver failed to open.
      */
-    public synchronized void openDriver(SurfaceHolder holder) throws IOException {
+    private void doOpenDriver(SurfaceHolder holder) throws IOException {
         OpenCamera theCamera = camera;
         if (theCamera == null) {
+            // Camera.open() may take a while; don't hold the lock the UI needs for the framing rect
             theCamera = OpenCameraInterface.open(requestedCameraId);
             if (theCamera == null) {
                 throw new IOException("Camera.open() failed to return object from driver");
             }
-            camera = theCamera;
         }
 
-        if (!initialized) {
-            initialized = true;
-            configManager.initFromCameraParameters(theCamera);
-            if (requestedFramingRectWidth > 0 && requestedFramingRectHeight > 0) {
-                setManualFramingRect(requestedFramingRectWidth, requestedFramingRectHeight);
-                requestedFramingRectWidth = 0;
-                requestedFramingRectHeight = 0;
+        synchronized (this) {
+            camera = theCamera;
+            if (!initialized) {
+                initialized = true;
+                configManager.initFromCameraParameters(theCamera);
+                if (requestedFramingRectWidth > 0 && requestedFramingRectHeight > 0) {
+                    setManualFramingRect(requestedFramingRectWidth, requestedFramingRectHeight);
+                    requestedFramingRectWidth = 0;
+                    requestedFramingRectHeight = 0;
+                }
             }
         }
 
@@ -101,9 +164,28 @@ public class CameraManager {
     }
 
     /**
-     * Closes the camera driver if still in use.
+     * Closes the camera driver if still in use and stops the camera thread. Waits a short while for the
+     * camera to be released so it can be opened again right away.
      */
-    public synchronized void closeDriver() {
+    public void closeDriver() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doCloseDriver();
+            }
+        });
+        cameraThread.quitSafely();
+        try {
+            cameraThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            // continue
+        }
+    }
+
+    private synchronized void doCloseDriver() {
+        if (previewBufferPool != null) {
+            previewBufferPool.detach();
+        }
         if (camera != null) {
             camera.getCamera().release();
             camera = null;
@@ -118,6 +200,18 @@ public class CameraManager {
      * 切换闪光灯
      */
     public void switchFlash() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doSwitchFlash();
+            }
+        });
+    }
+
+    private synchronized void doSwitchFlash() {
+        if (camera == null) {
+            return;
+        }
         Camera.Parameters parameters = camera.getCamera().getParameters();
         String flashMode = parameters.getFlashMode();
         if (flashMode.equals(Camera.Parameters.FLASH_MODE_TORCH)) {
@@ -133,26 +227,57 @@ public class CameraManager {
     /**
      * Asks the camera hardware to begin drawing preview frames to the screen.
      */
-    public synchronized void startPreview() {
+    public void startPreview() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doStartPreview();
+            }
+        });
+    }
+
+    private synchronized void doStartPreview() {
         OpenCamera theCamera = camera;
         if (theCamera != null && !previewing) {
-            theCamera.getCamera().startPreview();
+            Camera cameraObject = theCamera.getCamera();
+            if (previewBufferPool != null) {
+                Point cameraResolution = configManager.getCameraResolution();
+                Camera.Parameters parameters = cameraObject.getParameters();
+                previewBufferPool.attach(cameraObject, cameraResolution, parameters.getPreviewFormat());
+                cameraObject.setPreviewCallbackWithBuffer(previewCallback);
+            }
+            cameraObject.startPreview();
             previewing = true;
-            autoFocusManager = new AutoFocusManager(theCamera.getCamera());
+            autoFocusManager = new AutoFocusManager(theCamera.getCamera(), cameraHandler);
         }
     }
 
     /**
      * Tells the camera to stop drawing preview frames.
      */
-    public synchronized void stopPreview() {
+    public void stopPreview() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doStopPreview();
+            }
+        });
+    }
+
+    private synchronized void doStopPreview() {
         if (autoFocusManager != null) {
             autoFocusManager.stop();
             autoFocusManager = null;
         }
         if (camera != null && previewing) {
+            if (previewBufferPool != null) {
+                previewBufferPool.detach();
+                // Also clears the camera's callback buffer queue
+                camera.getCamera().setPreviewCallbackWithBuffer(null);
+            }
             camera.getCamera().stopPreview();
             previewCallback.setHandler(null, 0);
+            previewCallback.setFrameListener(null);
             previewing = false;
         }
     }
@@ -160,19 +285,96 @@ public class CameraManager {
     /**
      * A single preview frame will be returned to the handler supplied. The data will arrive as byte[]
      * in the message.obj field, with width and height encoded as message.arg1 and message.arg2,
-     * respectively.
+     * respectively. In buffered mode the receiver must hand the data back through
+     * {@link #releasePreviewBuffer(byte[])} once it is done with it.
      *
      * @param handler The handler to send the message to.
      * @param message The what field of the message to be sent.
      */
-    public synchronized void requestPreviewFrame(Handler handler, int message) {
+    public void requestPreviewFrame(final Handler handler, final int message) {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doRequestPreviewFrame(handler, message);
+            }
+        });
+    }
+
+    private synchronized void doRequestPreviewFrame(Handler handler, int message) {
         OpenCamera theCamera = camera;
         if (theCamera != null && previewing) {
             previewCallback.setHandler(handler, message);
-            theCamera.getCamera().setOneShotPreviewCallback(previewCallback);
+            if (previewBufferPool == null) {
+                theCamera.getCamera().setOneShotPreviewCallback(previewCallback);
+            }
+        }
+    }
+
+    /**
+     * Every preview frame will be passed to the listener supplied, until {@link #stopPreviewFrames()} is
+     * called. Without buffered preview the camera allocates a new array for each frame.
+     *
+     * @param listener Receives the frames on the camera thread.
+     */
+    public void startPreviewFrames(final OnPreviewFrameListener listener) {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doStartPreviewFrames(listener);
+            }
+        });
+    }
+
+    private synchronized void doStartPreviewFrames(OnPreviewFrameListener listener) {
+        OpenCamera theCamera = camera;
+        if (theCamera != null && previewing) {
+            previewCallback.setFrameListener(listener);
+            if (previewBufferPool == null) {
+                theCamera.getCamera().setPreviewCallback(previewCallback);
+            }
+        }
+    }
+
+    /**
+     * Stops the frames started with {@link #startPreviewFrames(OnPreviewFrameListener)}.
+     */
+    public void stopPreviewFrames() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doStopPreviewFrames();
+            }
+        });
+    }
+
+    private synchronized void doStopPreviewFrames() {
+        previewCallback.setFrameListener(null);
+        OpenCamera theCamera = camera;
+        if (theCamera != null && previewing && previewBufferPool == null) {
+            theCamera.getCamera().setPreviewCallback(null);
+        }
+    }
+
+    /**
+     * Returns a frame obtained through {@link #requestPreviewFrame(Handler, int)} to the buffer pool so
+     * the camera can fill it again. Does nothing when buffered preview is disabled. Called directly from the
+     * decode threads; {@link PreviewBufferPool} is thread safe and stops touching the camera before it closes.
+     *
+     * @param data The preview frame that is no longer used.
+     */
+    public void releasePreviewBuffer(byte[] data) {
+        if (previewBufferPool != null && data != null) {
+            previewBufferPool.release(data);
         }
     }
 
+    /**
+     * @return the preview buffer pool and its statistics, or {@code null} if buffered preview is disabled
+     */
+    public PreviewBufferPool getPreviewBufferPool() {
+        return previewBufferPool;
+    }
+
     /**
      * 绘制扫描框时，扫描框的的Rect
      *
@@ -227,15 +429,13 @@ public class CameraManager {
                 // Called early, before init even finished
                 return null;
             }
-            //竖屏
-            if (screenResolution.x < screenResolution.y) {
+            //预览帧需要旋转90或270度时，宽高互换
+            if (configManager.getCWNeededRotation() % 180 != 0) {
                 rect.left = rect.left * cameraResolution.y / screenResolution.x;
                 rect.right = rect.right * cameraResolution.y / screenResolution.x;
                 rect.top = rect.top * cameraResolution.x / screenResolution.y;
                 rect.bottom = rect.bottom * cameraResolution.x / screenResolution.y;
-            }
-            //横屏
-            else {
+            } else {
                 rect.left = rect.left * cameraResolution.x / screenResolution.x;
                 rect.right = rect.right * cameraResolution.x / screenResolution.x;
                 rect.top = rect.top * cameraResolution.y / screenResolution.y;
@@ -280,40 +480,101 @@ public class CameraManager {
      * @param data   A preview frame.
      * @param width  The width of the image.
      * @param height The height of the image.
-     * @return A PlanarYUVLuminanceSource instance.
+     * @return A RotatedCropLuminanceSource instance.
+     */
+    public RotatedCropLuminanceSource buildLuminanceSource(byte[] data, int width, int height) {
+        return buildLuminanceSource(data, width, height, null);
+    }
+
+    /**
+     * Like {@link #buildLuminanceSource(byte[], int, int)}, but only the scanning area is copied out of
+     * the frame, rotated by {@link CameraConfigurationManager#getCWNeededRotation()} degrees.
+     *
+     * @param data        A preview frame.
+     * @param width       The width of the image.
+     * @param height      The height of the image.
+     * @param reuseBuffer The buffer of the previous source, see {@link RotatedCropLuminanceSource#getBuffer()}.
+     * @return A RotatedCropLuminanceSource instance.
+     */
+    public RotatedCropLuminanceSource buildLuminanceSource(byte[] data, int width, int height, byte[] reuseBuffer) {
+        FrameGeometry geometry = getFrameGeometry(width, height);
+        return geometry == null ? null : geometry.buildLuminanceSource(data, width, height, null, reuseBuffer);
+    }
+
+    /**
+     * The rotation needed by the preview frames and the scanning area in rotated frame coordinates:
+     * the whole frame for full screen scan, otherwise the framing rectangle below the tool bar.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @return The geometry, or null if the framing rectangle is not known yet or empty.
      */
-    public PlanarYUVLuminanceSource buildLuminanceSource(byte[] data, int width, int height) {
+    public FrameGeometry getFrameGeometry(int width, int height) {
         Rect rect = getFramingRectInPreview();
         if (rect == null) {
             return null;
         }
-        Point screenResolution = configManager.getScreenResolution();
-        //竖屏扫描时
-        if (screenResolution.x < screenResolution.y) {
-            byte[] rotatedData = new byte[data.length];
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    rotatedData[x * height + height - y - 1] = data[x + y * width];
-                }
-            }
-            int tmp = width; // Here we are swapping, that's the difference to #11
-            width = height;
-            height = tmp;
-            data = rotatedData;
-        }
+        int rotation = configManager.getCWNeededRotation();
         //现在的手机的处理器性能过剩严重,Rect可以为屏幕大小，可以增加扫描精,所以默认全屏扫描
         if (initOption.isFullScreenScan()) {
-            return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
-        } else {
-            int actionbarHeight = context.getResources().getDimensionPixelSize(R.dimen.toolBarHeight);
-            return new PlanarYUVLuminanceSource(data, width, height, rect.left, rect.top + actionbarHeight, rect.width(), rect.height(), false);
+            return FrameGeometry.fullFrame(rotation, width, height);
+        }
+        boolean swapped = rotation % 180 != 0;
+        int actionbarHeight = context.getResources().getDimensionPixelSize(R.dimen.toolBarHeight);
+        int left = Math.max(0, rect.left);
+        int top = Math.max(0, rect.top + actionbarHeight);
+        int right = Math.min(swapped ? height : width, rect.right);
+        int bottom = Math.min(swapped ? width : height, rect.bottom + actionbarHeight);
+        if (right <= left || bottom <= top) {
+            return null;
         }
+        return new FrameGeometry(rotation, left, top, right, bottom);
+    }
+
+    /**
+     * Every preview frame uses the current framing rectangle, see {@link #getFrameGeometry(int, int)}.
+     */
+    @Override
+    public FrameGeometry getFrameGeometry(byte[] data, int width, int height) {
+        return getFrameGeometry(width, height);
+    }
+
+    /**
+     * Stale preview frames are better dropped than decoded late.
+     */
+    @Override
+    public boolean isLossless() {
+        return false;
+    }
+
+    @Override
+    public void startFrames(OnPreviewFrameListener listener) {
+        startPreviewFrames(listener);
+    }
+
+    @Override
+    public void stopFrames() {
+        stopPreviewFrames();
+    }
+
+    @Override
+    public void releaseFrame(byte[] data) {
+        releasePreviewBuffer(data);
     }
 
     /**
      * @param newSetting if {@code true}, light should be turned on if currently off. And vice versa.
      */
-    public synchronized void setTorch(boolean newSetting) {
+    public void setTorch(final boolean newSetting) {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doSetTorch(newSetting);
+            }
+        });
+    }
+
+    private synchronized void doSetTorch(boolean newSetting) {
         OpenCamera theCamera = camera;
         if (theCamera != null && newSetting != configManager.getTorchState(theCamera.getCamera())) {
             boolean wasAutoFocusManager = autoFocusManager != null;
@@ -323,12 +584,56 @@ public class CameraManager {
             }
             configManager.setTorch(theCamera.getCamera(), newSetting);
             if (wasAutoFocusManager) {
-                autoFocusManager = new AutoFocusManager(theCamera.getCamera());
-                autoFocusManager.start();
+                autoFocusManager = new AutoFocusManager(theCamera.getCamera(), cameraHandler);
             }
         }
     }
 
+    /**
+     * 设置缩放
+     *
+     * @param zoom 缩放等级，超出范围时取最接近的值
+     */
+    public void setZoom(final int zoom) {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doSetZoom(zoom);
+            }
+        });
+    }
+
+    private synchronized void doSetZoom(int zoom) {
+        OpenCamera theCamera = camera;
+        if (theCamera == null) {
+            return;
+        }
+        Camera.Parameters parameters = theCamera.getCamera().getParameters();
+        if (parameters == null || !parameters.isZoomSupported()) {
+            return;
+        }
+        parameters.setZoom(Math.max(0, Math.min(zoom, parameters.getMaxZoom())));
+        theCamera.getCamera().setParameters(parameters);
+    }
+
+    /**
+     * 立即对焦一次
+     */
+    public void requestAutoFocus() {
+        cameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                doRequestAutoFocus();
+            }
+        });
+    }
+
+    private synchronized void doRequestAutoFocus() {
+        if (autoFocusManager != null) {
+            autoFocusManager.start();
+        }
+    }
+
     public synchronized boolean isOpen() {
         return camera != null;
     }
@@ -0,0 +1,11 @@
+package com.aalizzwell.zxing.camera;
+
+/**
+ * 相机在相机线程中打开后的回调，在调用{@link CameraManager#openDriver(android.view.SurfaceHolder, OnCameraOpenListener)}的线程中执行
+ */
+public interface OnCameraOpenListener {
+
+    void onCameraOpened();
+
+    void onCameraOpenFailed(Exception e);
+}
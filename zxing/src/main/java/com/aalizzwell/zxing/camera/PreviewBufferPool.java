@@ -0,0 +1,176 @@
+package com.aalizzwell.zxing.camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Point;
+import android.hardware.Camera;
+import android.util.Log;
+
+/**
+ * 预览帧缓冲池
+ * 配合{@link Camera#setPreviewCallbackWithBuffer(Camera.PreviewCallback)}使用，固定数量的缓冲区在相机和解码线程之间循环使用，
+ * 稳定扫码时不再为每一帧分配新的byte[]
+ */
+@SuppressWarnings("deprecation") // camera APIs
+public final class PreviewBufferPool {
+
+    private static final String TAG = PreviewBufferPool.class.getSimpleName();
+
+    /**
+     * 一帧在相机中填充，一帧在解码，一帧备用
+     */
+    static final int DEFAULT_BUFFER_COUNT = 3;
+
+    private final byte[][] buffers;
+    /*缓冲区是否已交给解码线程*/
+    private final boolean[] outstanding;
+    private int bufferSize;
+    private Camera camera;
+
+    private long allocatedBuffers;
+    private long allocatedBytes;
+    private long framesDelivered;
+    private long buffersRecycled;
+    private long staleBuffers;
+
+    PreviewBufferPool(int bufferCount) {
+        if (bufferCount <= 0) {
+            throw new IllegalArgumentException("Bad buffer count: " + bufferCount);
+        }
+        buffers = new byte[bufferCount][];
+        outstanding = new boolean[bufferCount];
+    }
+
+    /**
+     * 按预览分辨率准备缓冲区，并把空闲的缓冲区全部交给相机
+     *
+     * @param camera        预览中的相机
+     * @param resolution    {@link CameraConfigurationManager#getCameraResolution()}
+     * @param previewFormat 预览格式，默认为NV21
+     */
+    synchronized void attach(Camera camera, Point resolution, int previewFormat) {
+        int bitsPerPixel = ImageFormat.getBitsPerPixel(previewFormat);
+        if (bitsPerPixel <= 0) {
+            bitsPerPixel = ImageFormat.getBitsPerPixel(ImageFormat.NV21);
+        }
+        int size = resolution.x * resolution.y * bitsPerPixel / 8;
+        if (size != bufferSize) {
+            // 分辨率变化，旧缓冲区全部作废，解码中的缓冲区归还时会被丢弃
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = null;
+                outstanding[i] = false;
+            }
+            bufferSize = size;
+        }
+        this.camera = camera;
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null) {
+                buffers[i] = new byte[size];
+                allocatedBuffers++;
+                allocatedBytes += size;
+            }
+            if (!outstanding[i]) {
+                camera.addCallbackBuffer(buffers[i]);
+            }
+        }
+        Log.i(TAG, "Attached " + buffers.length + " preview buffers of " + size + " bytes");
+    }
+
+    /**
+     * 停止预览或关闭相机前调用，之后归还的缓冲区只做标记，不再交给相机
+     */
+    synchronized void detach() {
+        camera = null;
+    }
+
+    /**
+     * 相机填充完一帧，缓冲区交给解码线程
+     */
+    synchronized void onFrameDelivered(byte[] data) {
+        framesDelivered++;
+        int index = indexOf(data);
+        if (index >= 0) {
+            outstanding[index] = true;
+        }
+    }
+
+    /**
+     * 解码结束后归还缓冲区，重新加入相机的缓冲队列
+     */
+    synchronized void release(byte[] data) {
+        int index = indexOf(data);
+        if (index < 0) {
+            staleBuffers++;
+            return;
+        }
+        outstanding[index] = false;
+        if (camera != null) {
+            camera.addCallbackBuffer(data);
+            buffersRecycled++;
+        }
+    }
+
+    private int indexOf(byte[] data) {
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == data) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getBufferCount() {
+        return buffers.length;
+    }
+
+    public synchronized int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return 累计分配的缓冲区个数，稳定扫码时应保持等于{@link #getBufferCount()}
+     */
+    public synchronized long getAllocatedBuffers() {
+        return allocatedBuffers;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getFramesDelivered() {
+        return framesDelivered;
+    }
+
+    public synchronized long getBuffersRecycled() {
+        return buffersRecycled;
+    }
+
+    /**
+     * @return 分辨率变化后才归还、已被丢弃的旧缓冲区个数
+     */
+    public synchronized long getStaleBuffers() {
+        return staleBuffers;
+    }
+
+    public synchronized int getOutstandingBuffers() {
+        int count = 0;
+        for (boolean out : outstanding) {
+            if (out) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PreviewBufferPool{buffers=" + buffers.length +
+                ", bufferSize=" + bufferSize +
+                ", allocatedBuffers=" + allocatedBuffers +
+                ", allocatedBytes=" + allocatedBytes +
+                ", framesDelivered=" + framesDelivered +
+                ", buffersRecycled=" + buffersRecycled +
+                ", staleBuffers=" + staleBuffers + '}';
+    }
+
+}
@@ -28,11 +28,14 @@ final class PreviewCallback implements Camera.PreviewCallback {
   private static final String TAG = PreviewCallback.class.getSimpleName();
 
   private final CameraConfigurationManager configManager;
+  private final PreviewBufferPool bufferPool;
   private Handler previewHandler;
   private int previewMessage;
+  private OnPreviewFrameListener frameListener;
 
-  PreviewCallback(CameraConfigurationManager configManager) {
+  PreviewCallback(CameraConfigurationManager configManager, PreviewBufferPool bufferPool) {
     this.configManager = configManager;
+    this.bufferPool = bufferPool;
   }
 
   void setHandler(Handler previewHandler, int previewMessage) {
@@ -40,15 +43,28 @@ final class PreviewCallback implements Camera.PreviewCallback {
     this.previewMessage = previewMessage;
   }
 
+  void setFrameListener(OnPreviewFrameListener frameListener) {
+    this.frameListener = frameListener;
+  }
+
   @Override
   public void onPreviewFrame(byte[] data, Camera camera) {
     Point cameraResolution = configManager.getCameraResolution();
     Handler thePreviewHandler = previewHandler;
-    if (cameraResolution != null && thePreviewHandler != null) {
+    OnPreviewFrameListener theFrameListener = frameListener;
+    if (bufferPool != null) {
+      bufferPool.onFrameDelivered(data);
+    }
+    if (cameraResolution != null && theFrameListener != null) {
+      theFrameListener.onPreviewFrame(data, cameraResolution.x, cameraResolution.y);
+    } else if (cameraResolution != null && thePreviewHandler != null) {
       Message message = thePreviewHandler.obtainMessage(previewMessage, cameraResolution.x,
           cameraResolution.y, data);
       message.sendToTarget();
       previewHandler = null;
+    } else if (bufferPool != null) {
+      // Buffered mode keeps delivering frames; hand the buffer straight back to the camera
+      bufferPool.release(data);
     } else {
       Log.d(TAG, "Got preview callback, but no handler or resolution available");
     }
@@ -0,0 +1,116 @@
+package com.aalizzwell.zxing.decode;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+
+import com.aalizzwell.zxing.utils.QRCodeUtil;
+import com.google.zxing.LuminanceSource;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 通过ContentResolver读取相册图片，content://和file://都支持
+ * 与{@link QRCodeUtil#parseQRCode(String)}一样先按2的幂缩小，再转换为亮度写入解码线程的缓冲区
+ */
+public final class BitmapImageLoader implements ImageSourceLoader<Uri>, CacheKeyProvider<Uri> {
+
+    /*按2的幂缩小，宽高都不小于这个尺寸；1200万像素的照片读为约300万像素，再由MultiScaleDecoder逐级识别*/
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final ContentResolver resolver;
+    private final int maxWidth;
+    private final int maxHeight;
+
+    public BitmapImageLoader(Context context) {
+        this(context, DEFAULT_MAX_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxWidth  图片最大宽度
+     * @param maxHeight 图片最大高度
+     */
+    public BitmapImageLoader(Context context, int maxWidth, int maxHeight) {
+        this.resolver = context.getApplicationContext().getContentResolver();
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    @Override
+    public LuminanceSource load(Uri image, DecodeBuffers buffers) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(image, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = QRCodeUtil.calculateInSampleSize(options, maxWidth, maxHeight);
+        options.inPreferredConfig = QRCodeUtil.getDecodeConfig(options);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = decode(image, options);
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            return new BitmapLuminanceSource(bitmap, buffers, false);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Uri加文件大小加修改时间；提供方没有修改时间时只用Uri加大小
+     */
+    @Override
+    public String getCacheKey(Uri image) {
+        if (ContentResolver.SCHEME_FILE.equals(image.getScheme())) {
+            File file = new File(image.getPath());
+            return file.isFile() ? DecodeResultCache.key(image.toString(), file.length(), file.lastModified()) : null;
+        }
+        Cursor cursor;
+        try {
+            // Not every provider knows DATE_MODIFIED, so ask for all columns instead of failing the query
+            cursor = resolver.query(image, null, null, null, null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            int sizeColumn = cursor.getColumnIndex(OpenableColumns.SIZE);
+            if (sizeColumn < 0 || cursor.isNull(sizeColumn)) {
+                return null;
+            }
+            int modifiedColumn = cursor.getColumnIndex(MediaStore.MediaColumns.DATE_MODIFIED);
+            long modified = modifiedColumn < 0 || cursor.isNull(modifiedColumn) ? -1 : cursor.getLong(modifiedColumn);
+            return DecodeResultCache.key(image.toString(), cursor.getLong(sizeColumn), modified);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private Bitmap decode(Uri image, BitmapFactory.Options options) throws IOException {
+        InputStream in = resolver.openInputStream(image);
+        if (in == null) {
+            throw new FileNotFoundException(image.toString());
+        }
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -5,37 +5,87 @@ import android.graphics.Bitmap;
 import com.google.zxing.LuminanceSource;
 
 /**
- *
  * 解析Bitmap LuminanceSource
+ * 每次通过{@link Bitmap#getPixels}读取若干行，按加权亮度直接写入byte数组，不再为整张图分配ARGB的int数组。
+ * 延迟模式下只在用到某一行时才读取它所在的那几行，只按行识别（GlobalHistogramBinarizer、条形码）时不必转换整张图。
  */
 public class BitmapLuminanceSource extends LuminanceSource {
 
-    private byte bitmapPixels[];
+    /*每次从Bitmap读取的行数*/
+    private static final int BAND_ROWS = 32;
+
+    private final byte[] bitmapPixels;
+    private final int[] band;
+    private final boolean[] converted;
+    private Bitmap bitmap;
+    private int remainingBands;
 
     public BitmapLuminanceSource(Bitmap bitmap) {
+        this(bitmap, null, false);
+    }
+
+    /**
+     * @param bitmap  图片，延迟模式下识别结束前不能回收；否则构造完成后即可回收
+     * @param buffers 解码线程的缓冲区，为null时自行分配
+     * @param lazy    是否延迟转换
+     */
+    public BitmapLuminanceSource(Bitmap bitmap, DecodeBuffers buffers, boolean lazy) {
         super(bitmap.getWidth(), bitmap.getHeight());
+        int width = getWidth();
+        int height = getHeight();
+        int bandLength = width * Math.min(BAND_ROWS, height);
+        // Exactly width * height, getMatrix() hands it out as is
+        this.bitmapPixels = buffers == null ? new byte[width * height] : buffers.bytes(width * height);
+        this.band = buffers == null ? new int[bandLength] : buffers.ints(bandLength);
+        this.bitmap = bitmap;
+        this.remainingBands = (height + BAND_ROWS - 1) / BAND_ROWS;
+        this.converted = new boolean[remainingBands];
+        if (!lazy) {
+            convertAll();
+        }
+    }
 
-        // 首先，要取得该图片的像素数组内容
-        int[] data = new int[bitmap.getWidth() * bitmap.getHeight()];
-        this.bitmapPixels = new byte[bitmap.getWidth() * bitmap.getHeight()];
-        bitmap.getPixels(data, 0, getWidth(), 0, 0, getWidth(), getHeight());
+    private void convertBand(int index) {
+        if (converted[index]) {
+            return;
+        }
+        int width = getWidth();
+        int top = index * BAND_ROWS;
+        int rows = Math.min(BAND_ROWS, getHeight() - top);
+        bitmap.getPixels(band, 0, width, 0, top, width, rows);
+        ArgbLuminance.convert(band, 0, bitmapPixels, top * width, width * rows);
+        converted[index] = true;
+        if (--remainingBands == 0) {
+            // Everything is in bitmapPixels now; the caller may recycle the bitmap
+            bitmap = null;
+        }
+    }
 
-        // 将int数组转换为byte数组，也就是取像素值中蓝色值部分作为辨析内容
-        for (int i = 0; i < data.length; i++) {
-            this.bitmapPixels[i] = (byte) data[i];
+    private void convertAll() {
+        for (int i = 0; i < converted.length; i++) {
+            convertBand(i);
         }
     }
 
     @Override
     public byte[] getMatrix() {
         // 返回我们生成好的像素数据
+        convertAll();
         return bitmapPixels;
     }
 
     @Override
     public byte[] getRow(int y, byte[] row) {
         // 这里要得到指定行的像素数据
-        System.arraycopy(bitmapPixels, y * getWidth(), row, 0, getWidth());
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        convertBand(y / BAND_ROWS);
+        System.arraycopy(bitmapPixels, y * width, row, 0, width);
         return row;
     }
 }
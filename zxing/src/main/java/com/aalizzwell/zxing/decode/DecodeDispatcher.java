@@ -0,0 +1,263 @@
+package com.aalizzwell.zxing.decode;
+
+import android.os.Handler;
+import android.os.Message;
+import android.util.Log;
+
+import com.aalizzwell.zxing.android.CaptureHelper;
+import com.aalizzwell.zxing.camera.OnPreviewFrameListener;
+import com.aalizzwell.zxing.common.Constant;
+import com.aalizzwell.zxing.frame.FrameGeometry;
+import com.aalizzwell.zxing.frame.FrameRecorder;
+import com.aalizzwell.zxing.frame.FrameSource;
+import com.aalizzwell.zxing.metrics.ScanMetrics;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPointCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多线程解码调度
+ * 相机线程把每一帧放进{@link LatestFrameSlot}，空闲的解码线程直接取走最新的一帧；来不及解码的旧帧被覆盖，缓冲区直接归还给相机。
+ * 任意一个线程解码成功后停止解码，其余线程在下一个检查点（金字塔各层之间、按原分辨率识别区域之前）放弃手上的帧。
+ * 帧的来源和缓冲区的归还都通过{@link FrameSource}，配置了录制文件时同时把收到的帧录制下来；
+ * 帧来源要求不丢帧时（尽快回放录制文件），送帧的线程等待解码线程取走上一帧。
+ */
+public final class DecodeDispatcher implements OnPreviewFrameListener {
+
+    private static final String TAG = DecodeDispatcher.class.getSimpleName();
+
+    static final int INACTIVE = -1;
+
+    private final CaptureHelper captureHelper;
+    private final FrameSource frameSource;
+    /*帧录制，未配置录制文件或录制结束后为null*/
+    private volatile FrameRecorder frameRecorder;
+    private final DecodeThread[] workers;
+    private final LatestFrameSlot frameSlot;
+    private final AdaptiveFormatScheduler formatScheduler;
+    private final RoiTracker roiTracker;
+    private final FrameQualityGate qualityGate;
+    /*当前解码批次，解码成功或停止后为INACTIVE*/
+    private final AtomicInteger activeGeneration = new AtomicInteger(INACTIVE);
+    private int generation;
+
+    private final AtomicLong framesDecoded = new AtomicLong();
+    /*各金字塔层识别成功的次数，下标为缩小倍数的log2*/
+    private final AtomicLongArray resultsPerLevel = new AtomicLongArray(3);
+
+    public DecodeDispatcher(CaptureHelper captureHelper,
+                            FrameSource frameSource,
+                            ResultPointCallback resultPointCallback,
+                            int workerCount) {
+        this.captureHelper = captureHelper;
+        this.frameSource = frameSource;
+        frameSlot = new LatestFrameSlot(workerCount);
+        int cadence = captureHelper.initOption.getAdaptiveFormatCadence();
+        formatScheduler = cadence > 1 ? new AdaptiveFormatScheduler(
+                DecodeFormatManager.getCaptureFormats(captureHelper.initOption.isDecodeBarCode()),
+                AdaptiveFormatScheduler.DEFAULT_WINDOW_SIZE, cadence) : null;
+        int roiMaxMisses = captureHelper.initOption.getRoiMaxMisses();
+        roiTracker = roiMaxMisses > 0 ? new RoiTracker(roiMaxMisses) : null;
+        qualityGate = captureHelper.initOption.isFrameQualityGate() ? new FrameQualityGate() : null;
+        workers = new DecodeThread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new DecodeThread(captureHelper, resultPointCallback, this, i);
+        }
+    }
+
+    public void start() {
+        String recordPath = captureHelper.initOption.getRecordFramesPath();
+        if (recordPath != null) {
+            try {
+                frameRecorder = new FrameRecorder(new File(recordPath), captureHelper.initOption.getRecordMaxFrames());
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot record frames to " + recordPath, e);
+            }
+        }
+        for (DecodeThread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * 开始新一轮解码，之前未完成的结果全部作废
+     */
+    public void resume() {
+        activeGeneration.set(++generation);
+    }
+
+    @Override
+    public void onPreviewFrame(byte[] data, int width, int height) {
+        if (activeGeneration.get() == INACTIVE) {
+            release(data);
+            return;
+        }
+        FrameRecorder recorder = frameRecorder;
+        if (recorder != null) {
+            record(recorder, data, width, height);
+        }
+        release(frameSlot.put(data, width, height, frameSource.isLossless()));
+        captureHelper.getScanMetrics().onFrameProduced();
+    }
+
+    private void record(FrameRecorder recorder, byte[] data, int width, int height) {
+        FrameGeometry geometry = frameSource.getFrameGeometry(data, width, height);
+        try {
+            if (geometry == null || recorder.record(data, width, height, geometry)) {
+                return;
+            }
+            Log.d(TAG, "Recorded " + recorder.getFrameCount() + " frames");
+        } catch (IOException e) {
+            Log.w(TAG, "Frame recording failed", e);
+        }
+        closeRecorder();
+    }
+
+    private void closeRecorder() {
+        FrameRecorder recorder = frameRecorder;
+        frameRecorder = null;
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Frame recording failed", e);
+            }
+        }
+    }
+
+    FrameSource getFrameSource() {
+        return frameSource;
+    }
+
+    LatestFrameSlot getFrameSlot() {
+        return frameSlot;
+    }
+
+    /**
+     * 解码线程取到一帧后调用
+     *
+     * @param decoder 该线程的解码器
+     * @param frame   预览帧
+     */
+    void decode(WorkerDecoder decoder, LatestFrameSlot.Frame frame) {
+        int theGeneration = activeGeneration.get();
+        if (theGeneration == INACTIVE) {
+            // Another worker already found the code
+            release(frame.data);
+            return;
+        }
+        ScanMetrics scanMetrics = captureHelper.getScanMetrics();
+        scanMetrics.recordStage(ScanMetrics.Stage.FRAME_WAIT, System.nanoTime() - frame.putNanos);
+        // The frame object is reused once its buffer is released inside decode(), so only its values are passed on
+        Result rawResult = decoder.decode(frame.data, frame.width, frame.height, activeGeneration, theGeneration);
+        framesDecoded.incrementAndGet();
+        if (rawResult != null && activeGeneration.compareAndSet(theGeneration, INACTIVE)) {
+            resultsPerLevel.incrementAndGet(Integer.numberOfTrailingZeros(decoder.getLastScale()));
+            release(frameSlot.clear());
+            scanMetrics.markDeliveryStart();
+            Handler handler = captureHelper.getCaptureHandler();
+            if (handler != null) {
+                Message.obtain(handler, Constant.DECODE_SUCCEEDED, rawResult).sendToTarget();
+            }
+        }
+    }
+
+    private void release(byte[] data) {
+        if (data != null) {
+            frameSource.releaseFrame(data);
+        }
+    }
+
+    /**
+     * 停止解码并退出所有解码线程
+     */
+    public void quitSynchronously() {
+        activeGeneration.set(INACTIVE);
+        frameSlot.close();
+        release(frameSlot.clear());
+        // Wait at most half a second in total; should be enough time, and onPause() will timeout quickly
+        long deadline = System.currentTimeMillis() + 500L;
+        for (DecodeThread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                worker.join(remaining);
+            } catch (InterruptedException e) {
+                // continue
+            }
+        }
+        closeRecorder();
+        Log.d(TAG, "Frames produced " + getFramesProduced() + ", decoded " + getFramesDecoded()
+                + ", overwritten " + getFramesOverwritten() + ", results at 1/1 " + getResultsAtScale(1)
+                + ", 1/2 " + getResultsAtScale(2) + ", 1/4 " + getResultsAtScale(4));
+        if (roiTracker != null) {
+            Log.d(TAG, "Frames decoded in tracked region " + roiTracker.getTrackedFrames()
+                    + ", region lost " + roiTracker.getLostCount() + " times");
+        }
+        if (qualityGate != null) {
+            Log.d(TAG, qualityGate.toString());
+        }
+    }
+
+    /**
+     * @return 格式调度统计，未开启自适应调度时为null
+     */
+    public AdaptiveFormatScheduler getFormatScheduler() {
+        return formatScheduler;
+    }
+
+    /**
+     * @param scale 金字塔层的缩小倍数：1、2或4
+     * @return 在该层识别成功的次数
+     */
+    public long getResultsAtScale(int scale) {
+        return resultsPerLevel.get(Integer.numberOfTrailingZeros(scale));
+    }
+
+    /**
+     * @return 识别区域跟踪，未开启时为null
+     */
+    public RoiTracker getRoiTracker() {
+        return roiTracker;
+    }
+
+    /**
+     * @return 帧质量过滤，未开启时为null
+     */
+    public FrameQualityGate getQualityGate() {
+        return qualityGate;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * @return 相机送来的帧数
+     */
+    public long getFramesProduced() {
+        return frameSlot.getFramesProduced();
+    }
+
+    /**
+     * @return 真正经过解码的帧数
+     */
+    public long getFramesDecoded() {
+        return framesDecoded.get();
+    }
+
+    /**
+     * @return 解码线程来不及处理、被新帧覆盖的帧数
+     */
+    public long getFramesOverwritten() {
+        return frameSlot.getFramesOverwritten();
+    }
+
+}
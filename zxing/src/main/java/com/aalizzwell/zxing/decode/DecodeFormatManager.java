@@ -1,92 +0,0 @@
-package com.aalizzwell.zxing.decode;
-
-import android.content.Intent;
-import android.net.Uri;
-
-import com.google.zxing.BarcodeFormat;
-import com.aalizzwell.zxing.android.Intents;
-
-import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.regex.Pattern;
-
-public class DecodeFormatManager {
-    private static final Pattern COMMA_PATTERN = Pattern.compile(",");
-
-    public static final Set<BarcodeFormat> PRODUCT_FORMATS;
-    public static final Set<BarcodeFormat> INDUSTRIAL_FORMATS;
-    public static final Set<BarcodeFormat> ONE_D_FORMATS;
-    public static final Map<String, Set<BarcodeFormat>> FORMATS_FOR_MODE;
-    public static final Set<BarcodeFormat> QR_CODE_FORMATS = EnumSet.of(BarcodeFormat.QR_CODE);
-    public static final Set<BarcodeFormat> DATA_MATRIX_FORMATS = EnumSet.of(BarcodeFormat.DATA_MATRIX);
-    public static final Set<BarcodeFormat> AZTEC_FORMATS = EnumSet.of(BarcodeFormat.AZTEC);
-    public static final Set<BarcodeFormat> PDF417_FORMATS = EnumSet.of(BarcodeFormat.PDF_417);
-
-    static {
-        PRODUCT_FORMATS = EnumSet.of(BarcodeFormat.UPC_A,
-                BarcodeFormat.UPC_E,
-                BarcodeFormat.EAN_13,
-                BarcodeFormat.EAN_8,
-                BarcodeFormat.RSS_14,
-                BarcodeFormat.RSS_EXPANDED);
-        INDUSTRIAL_FORMATS = EnumSet.of(BarcodeFormat.CODE_39,
-                BarcodeFormat.CODE_93,
-                BarcodeFormat.CODE_128,
-                BarcodeFormat.ITF,
-                BarcodeFormat.CODABAR);
-        ONE_D_FORMATS = EnumSet.copyOf(PRODUCT_FORMATS);
-        ONE_D_FORMATS.addAll(INDUSTRIAL_FORMATS);
-    }
-
-    static {
-        FORMATS_FOR_MODE = new HashMap<>();
-        FORMATS_FOR_MODE.put(Intents.Scan.ONE_D_MODE, ONE_D_FORMATS);
-        FORMATS_FOR_MODE.put(Intents.Scan.PRODUCT_MODE, PRODUCT_FORMATS);
-        FORMATS_FOR_MODE.put(Intents.Scan.QR_CODE_MODE, QR_CODE_FORMATS);
-        FORMATS_FOR_MODE.put(Intents.Scan.DATA_MATRIX_MODE, DATA_MATRIX_FORMATS);
-        FORMATS_FOR_MODE.put(Intents.Scan.AZTEC_MODE, AZTEC_FORMATS);
-        FORMATS_FOR_MODE.put(Intents.Scan.PDF417_MODE, PDF417_FORMATS);
-    }
-
-    private DecodeFormatManager() {
-    }
-
-    public static Set<BarcodeFormat> parseDecodeFormats(Intent intent) {
-        Iterable<String> scanFormats = null;
-        CharSequence scanFormatsString = intent.getStringExtra(Intents.Scan.FORMATS);
-        if (scanFormatsString != null) {
-            scanFormats = Arrays.asList(COMMA_PATTERN.split(scanFormatsString));
-        }
-        return parseDecodeFormats(scanFormats, intent.getStringExtra(Intents.Scan.MODE));
-    }
-
-    static Set<BarcodeFormat> parseDecodeFormats(Uri inputUri) {
-        List<String> formats = inputUri.getQueryParameters(Intents.Scan.FORMATS);
-        if (formats != null && formats.size() == 1 && formats.get(0) != null) {
-            formats = Arrays.asList(COMMA_PATTERN.split(formats.get(0)));
-        }
-        return parseDecodeFormats(formats, inputUri.getQueryParameter(Intents.Scan.MODE));
-    }
-
-    private static Set<BarcodeFormat> parseDecodeFormats(Iterable<String> scanFormats, String decodeMode) {
-        if (scanFormats != null) {
-            Set<BarcodeFormat> formats = EnumSet.noneOf(BarcodeFormat.class);
-            try {
-                for (String format : scanFormats) {
-                    formats.add(BarcodeFormat.valueOf(format));
-                }
-                return formats;
-            } catch (IllegalArgumentException iae) {
-                // ignore it then
-            }
-        }
-        if (decodeMode != null) {
-            return FORMATS_FOR_MODE.get(decodeMode);
-        }
-        return null;
-    }
-}
@@ -0,0 +1,39 @@
+package com.aalizzwell.zxing.decode;
+
+import android.content.Intent;
+import android.net.Uri;
+
+import com.google.zxing.BarcodeFormat;
+import com.aalizzwell.zxing.android.Intents;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 从Intent或Uri中读取要识别的格式，格式集合见{@link DecodeFormatManager}
+ */
+public final class DecodeFormatParser {
+    private static final Pattern COMMA_PATTERN = Pattern.compile(",");
+
+    private DecodeFormatParser() {
+    }
+
+    public static Set<BarcodeFormat> parseDecodeFormats(Intent intent) {
+        Iterable<String> scanFormats = null;
+        CharSequence scanFormatsString = intent.getStringExtra(Intents.Scan.FORMATS);
+        if (scanFormatsString != null) {
+            scanFormats = Arrays.asList(COMMA_PATTERN.split(scanFormatsString));
+        }
+        return DecodeFormatManager.parseDecodeFormats(scanFormats, intent.getStringExtra(Intents.Scan.MODE));
+    }
+
+    static Set<BarcodeFormat> parseDecodeFormats(Uri inputUri) {
+        List<String> formats = inputUri.getQueryParameters(Intents.Scan.FORMATS);
+        if (formats != null && formats.size() == 1 && formats.get(0) != null) {
+            formats = Arrays.asList(COMMA_PATTERN.split(formats.get(0)));
+        }
+        return DecodeFormatManager.parseDecodeFormats(formats, inputUri.getQueryParameter(Intents.Scan.MODE));
+    }
+}
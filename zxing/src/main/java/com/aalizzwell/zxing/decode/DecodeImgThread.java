@@ -3,6 +3,10 @@ package com.aalizzwell.zxing.decode;
 import com.google.zxing.Result;
 import com.aalizzwell.zxing.utils.QRCodeUtil;
 
+/**
+ * @deprecated 每张图片一个线程，无法取消，使用{@link BatchImageDecoder}
+ */
+@Deprecated
 public class DecodeImgThread extends Thread {
 
 
@@ -16,18 +16,12 @@
 
 package com.aalizzwell.zxing.decode;
 
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.ResultPointCallback;
 
-import android.os.Handler;
-import android.os.Looper;
 import com.aalizzwell.zxing.android.CaptureHelper;
 
-import java.util.EnumMap;
 import java.util.Map;
-import java.util.Vector;
-import java.util.concurrent.CountDownLatch;
 
 /**
  * This thread does all the heavy lifting of decoding the images.
@@ -40,44 +34,33 @@ public final class DecodeThread extends Thread {
     public static final String BARCODE_SCALED_FACTOR = "barcode_scaled_factor";
 
     private final Map<DecodeHintType, Object> hints;
-    private Handler handler;
-    private final CountDownLatch handlerInitLatch;
     private final CaptureHelper captureHelper;
+    private final DecodeDispatcher dispatcher;
+    private final int index;
 
-    public DecodeThread(CaptureHelper captureHelper, ResultPointCallback resultPointCallback) {
+    DecodeThread(CaptureHelper captureHelper,
+                 ResultPointCallback resultPointCallback,
+                 DecodeDispatcher dispatcher,
+                 int index) {
+        super("DecodeThread-" + index);
         this.captureHelper = captureHelper;
-        handlerInitLatch = new CountDownLatch(1);
+        this.dispatcher = dispatcher;
+        this.index = index;
 
-        hints = new EnumMap<>(DecodeHintType.class);
-
-        Vector<BarcodeFormat> decodeFormats = new Vector<BarcodeFormat>();
         //是否解析有条形码
-        if (captureHelper.initOption.isDecodeBarCode()) {
-            decodeFormats.addAll(DecodeFormatManager.ONE_D_FORMATS);
-        }
-        decodeFormats.addAll(DecodeFormatManager.QR_CODE_FORMATS);
-        decodeFormats.addAll(DecodeFormatManager.DATA_MATRIX_FORMATS);
-
-        hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
-        hints.put(DecodeHintType.CHARACTER_SET, "UTF8");
+        hints = DecodeFormatManager.buildCaptureHints(captureHelper.initOption.isDecodeBarCode());
         hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, resultPointCallback);
     }
 
-    public Handler getHandler() {
-        try {
-            handlerInitLatch.await();
-        } catch (InterruptedException ie) {
-            // continue?
-        }
-        return handler;
-    }
-
     @Override
     public void run() {
-        Looper.prepare();
-        handler = new DecodeHandler(captureHelper, hints);
-        handlerInitLatch.countDown();
-        Looper.loop();
+        WorkerDecoder decoder = new WorkerDecoder(captureHelper, hints, dispatcher);
+        LatestFrameSlot frameSlot = dispatcher.getFrameSlot();
+        LatestFrameSlot.Frame frame;
+        // Blocks until the camera produces a frame; returns null once the dispatcher quits
+        while ((frame = frameSlot.take(index)) != null) {
+            dispatcher.decode(decoder, frame);
+        }
     }
 
 }
@@ -0,0 +1,193 @@
+package com.aalizzwell.zxing.decode;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 最新帧信箱
+ * 相机线程直接覆盖槽位中的帧，解码线程每次取走的都是最新的一帧，中间不经过Looper消息队列。
+ * 取帧使用getAndSet，多个解码线程同时取也只会有一个拿到同一帧；槽位为空时解码线程park等待。
+ * 帧的宽高和放入时间与帧一起放在槽位中，取出的总是同一帧的值。
+ * 不能丢帧时（尽快回放录制文件），放入帧的线程park等待上一帧被取走。
+ * 每个缓冲区对应一个复用的帧对象，放入帧时不分配内存。
+ */
+final class LatestFrameSlot {
+
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+    /*等待中的解码线程，按线程编号存放*/
+    private final AtomicReferenceArray<Thread> waiters;
+    /*等待上一帧被取走的送帧线程*/
+    private volatile Thread producer;
+    private volatile boolean closed;
+    /*最近放入的缓冲区和它们的帧对象，只在送帧线程访问*/
+    private final Frame[] frames;
+    private int nextFrame;
+
+    private final AtomicLong framesProduced = new AtomicLong();
+    private final AtomicLong framesOverwritten = new AtomicLong();
+    private final AtomicLong framesTaken = new AtomicLong();
+
+    LatestFrameSlot(int consumerCount) {
+        waiters = new AtomicReferenceArray<>(consumerCount);
+        // One per preview buffer: one being filled, one in the slot, one per decode thread
+        frames = new Frame[consumerCount + 2];
+    }
+
+    /**
+     * 放入一帧，唤醒等待中的解码线程
+     *
+     * @param lossless true时等待上一帧被取走，不覆盖
+     * @return 被覆盖、还没被取走的旧帧，或者等待时信箱已关闭、线程被中断而没能放入的这一帧，由调用方归还缓冲区
+     */
+    byte[] put(byte[] data, int width, int height, boolean lossless) {
+        framesProduced.incrementAndGet();
+        Frame frame = obtainFrame(data, width, height);
+        if (lossless) {
+            return putWhenEmpty(frame);
+        }
+        Frame previous = latest.getAndSet(frame.stamp());
+        unparkWaiters();
+        if (previous == null) {
+            return null;
+        }
+        framesOverwritten.incrementAndGet();
+        return previous.data;
+    }
+
+    private byte[] putWhenEmpty(Frame frame) {
+        Thread current = Thread.currentThread();
+        // Stamped when it actually enters the slot, so the frame wait excludes the producer's own wait
+        while (!latest.compareAndSet(null, frame.stamp())) {
+            // Interrupted when the replay stops; park() would return at once and spin until a decoder takes a frame
+            if (closed || current.isInterrupted()) {
+                return frame.data;
+            }
+            producer = current;
+            // Re-check after registering so a take() in between cannot be missed
+            if (latest.get() != null && !closed) {
+                LockSupport.park(this);
+            }
+            producer = null;
+        }
+        unparkWaiters();
+        return null;
+    }
+
+    /**
+     * 一个缓冲区在被归还之前不会再次放入，这时它上一次的帧对象已经没有人使用，可以直接改写。
+     * 不使用缓冲池的相机每帧都是新数组，找不到时新建，替换掉最早的一个。
+     */
+    private Frame obtainFrame(byte[] data, int width, int height) {
+        for (Frame frame : frames) {
+            if (frame != null && frame.data == data) {
+                frame.width = width;
+                frame.height = height;
+                return frame;
+            }
+        }
+        Frame frame = new Frame(data, width, height);
+        frames[nextFrame] = frame;
+        nextFrame = (nextFrame + 1) % frames.length;
+        return frame;
+    }
+
+    /**
+     * 取出最新的一帧，没有帧时阻塞
+     *
+     * @param consumer 解码线程编号
+     * @return 最新的一帧，信箱关闭后返回null
+     */
+    Frame take(int consumer) {
+        Thread current = Thread.currentThread();
+        while (!closed) {
+            Frame frame = latest.getAndSet(null);
+            if (frame != null) {
+                framesTaken.incrementAndGet();
+                unparkProducer();
+                return frame;
+            }
+            waiters.set(consumer, current);
+            // Re-check after registering so a put() in between cannot be missed
+            if (latest.get() == null && !closed) {
+                LockSupport.park(this);
+            }
+            waiters.set(consumer, null);
+        }
+        return null;
+    }
+
+    /**
+     * 清空信箱
+     *
+     * @return 没被取走的帧，由调用方归还缓冲区
+     */
+    byte[] clear() {
+        Frame frame = latest.getAndSet(null);
+        unparkProducer();
+        return frame == null ? null : frame.data;
+    }
+
+    /**
+     * 关闭信箱，唤醒所有解码线程退出
+     */
+    void close() {
+        closed = true;
+        unparkWaiters();
+        unparkProducer();
+    }
+
+    private void unparkProducer() {
+        Thread theProducer = producer;
+        if (theProducer != null) {
+            LockSupport.unpark(theProducer);
+        }
+    }
+
+    private void unparkWaiters() {
+        for (int i = 0; i < waiters.length(); i++) {
+            Thread waiter = waiters.get(i);
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    long getFramesProduced() {
+        return framesProduced.get();
+    }
+
+    long getFramesOverwritten() {
+        return framesOverwritten.get();
+    }
+
+    long getFramesTaken() {
+        return framesTaken.get();
+    }
+
+    /**
+     * 放入信箱的一帧
+     * 字段在放入前由送帧线程写入，通过信箱的原子引用发布给取走它的解码线程；解码线程归还缓冲区后不能再读取
+     */
+    static final class Frame {
+
+        final byte[] data;
+        int width;
+        int height;
+        /*放入信箱的时间*/
+        long putNanos;
+
+        Frame(byte[] data, int width, int height) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+        }
+
+        Frame stamp() {
+            putNanos = System.nanoTime();
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2010 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.aalizzwell.zxing.decode;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+import com.aalizzwell.zxing.android.CaptureHelper;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 解码线程的解码器，每个解码线程各持有一个，包装{@link FrameDecoder}并记录识别耗时
+ */
+final class WorkerDecoder {
+
+    private static final String TAG = WorkerDecoder.class.getSimpleName();
+
+    private final FrameDecoder frameDecoder;
+
+    WorkerDecoder(CaptureHelper captureHelper, Map<DecodeHintType, Object> hints, DecodeDispatcher dispatcher) {
+        frameDecoder = new FrameDecoder(dispatcher.getFrameSource(), hints,
+                dispatcher.getFormatScheduler(), dispatcher.getRoiTracker(), dispatcher.getQualityGate(),
+                captureHelper.initOption.isPyramidDecode(), captureHelper.getScanMetrics());
+    }
+
+    /**
+     * Decode the data within the viewfinder rectangle, and time how long it took. For efficiency,
+     * reuse the same reader objects from one decode to the next.
+     *
+     * @param data   The YUV preview frame.
+     * @param width  The width of the preview frame.
+     * @param height The height of the preview frame.
+     * @param activeGeneration The dispatcher's current generation, decoding stops once it changes.
+     * @param generation The generation this frame belongs to.
+     * @return The decoded result, or null if nothing was found.
+     */
+    Result decode(byte[] data, int width, int height, AtomicInteger activeGeneration, int generation) {
+        long start = System.nanoTime();
+        Result rawResult = frameDecoder.decode(data, width, height, activeGeneration, generation);
+        if (rawResult != null) {
+            // Don't log the barcode contents for security.
+            long end = System.nanoTime();
+            Log.d(TAG, "Found barcode in " + TimeUnit.NANOSECONDS.toMillis(end - start) + " ms at 1/"
+                    + getLastScale() + " scale");
+        }
+        return rawResult;
+    }
+
+    /**
+     * @return 上一次识别成功时所在金字塔层的缩小倍数，1表示原分辨率
+     */
+    int getLastScale() {
+        return frameDecoder.getLastScale();
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.aalizzwell.zxing.encode;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 生成的码图片以及缩放后的logo的内存缓存
+ * 按Bitmap占用的字节数计算容量，超出时淘汰最久未使用的；注册后收到onTrimMemory时按内存紧张程度缩减或清空。
+ * 缓存中的Bitmap会被多处共用，取出后不能修改，也不能recycle。线程安全。
+ */
+public class CodeBitmapCache implements ComponentCallbacks2 {
+
+    private static final String LOGO_PREFIX = "logo|";
+
+    private static CodeBitmapCache defaultCache;
+    /*每个logo对象分到的编号，不会重复；logo被回收后自动移除*/
+    private static final Map<Bitmap, Long> logoIds = new WeakHashMap<>();
+    private static long nextLogoId;
+
+    private final LruCache<String, Bitmap> cache;
+
+    /**
+     * @param maxBytes 缓存的Bitmap总字节数上限
+     */
+    public CodeBitmapCache(int maxBytes) {
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * 库本身不会使用它，只有传给生成方法时才占用内存
+     *
+     * @return 共用的缓存，容量为最大堆内存的1/16；需要调用{@link #register(Context)}后才会在内存紧张时释放
+     */
+    public static synchronized CodeBitmapCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new CodeBitmapCache((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16));
+        }
+        return defaultCache;
+    }
+
+    /**
+     * 接收系统的内存回调，建议在Application中注册一次
+     */
+    public CodeBitmapCache register(Context context) {
+        context.getApplicationContext().registerComponentCallbacks(this);
+        return this;
+    }
+
+    public void unregister(Context context) {
+        context.getApplicationContext().unregisterComponentCallbacks(this);
+    }
+
+    /**
+     * @param content 码的内容
+     * @param format  码的格式
+     * @param width   宽度
+     * @param height  高度
+     * @param level   容错级别，可为null
+     * @param margin  空白边距
+     * @param logo    logo，可为null
+     * @return 缓存生成的码使用的key
+     */
+    public static String key(String content, BarcodeFormat format, int width, int height,
+                             ErrorCorrectionLevel level, int margin, Bitmap logo) {
+        return format + "|" + width + "x" + height + "|" + level + "|" + margin + "|" + logoId(logo) + "|" + content;
+    }
+
+    /**
+     * logo以对象本身和它的generationId区分，logo的像素被修改后不会命中旧的结果
+     * identityHashCode可能重复，两个不同的logo会互相命中，所以给每个logo对象分配一个递增的编号
+     */
+    private static String logoId(Bitmap logo) {
+        if (logo == null) {
+            return "-";
+        }
+        Long id;
+        synchronized (logoIds) {
+            id = logoIds.get(logo);
+            if (id == null) {
+                id = nextLogoId++;
+                logoIds.put(logo, id);
+            }
+        }
+        return id + "@" + logo.getGenerationId();
+    }
+
+    public Bitmap get(String key) {
+        return cache.get(key);
+    }
+
+    public void put(String key, Bitmap bitmap) {
+        if (key != null && bitmap != null) {
+            cache.put(key, bitmap);
+        }
+    }
+
+    /**
+     * @return 缩放到指定大小的logo，没有缓存时为null
+     */
+    public Bitmap getScaledLogo(Bitmap logo, int width, int height) {
+        return cache.get(logoKey(logo, width, height));
+    }
+
+    public void putScaledLogo(Bitmap logo, int width, int height, Bitmap scaled) {
+        // createBitmap returns the source itself when no scaling is needed
+        if (scaled != null && scaled != logo) {
+            cache.put(logoKey(logo, width, height), scaled);
+        }
+    }
+
+    private static String logoKey(Bitmap logo, int width, int height) {
+        return LOGO_PREFIX + logoId(logo) + "|" + width + "x" + height;
+    }
+
+    /**
+     * @return 当前缓存的字节数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    public int maxSize() {
+        return cache.maxSize();
+    }
+
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            // In the background and likely to be killed; the codes are cheap to regenerate
+            cache.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+
+/**
+ * 把BitMatrix画到Bitmap上
+ * 每次只转换若干行（{@link BitMatrixRenderer#renderRows}）写入Bitmap，不再为整张图分配ARGB的int数组；
+ * 转换用的缓冲区按线程复用，反复生成（例如定时刷新的付款码）时不产生新的大数组。
+ * 可以选择占用内存更少的格式，并复用调用方的图片，见{@link RenderOptions}。
+ */
+public final class CodeBitmapRenderer {
+
+    /*每次写入Bitmap的行数*/
+    private static final int BAND_ROWS = 32;
+
+    private static final ThreadLocal<int[]> BAND = new ThreadLocal<>();
+
+    private CodeBitmapRenderer() {
+    }
+
+    /**
+     * @param matrix     位矩阵
+     * @param foreground 黑色模块的ARGB颜色
+     * @param background 白色模块的ARGB颜色
+     * @return 与矩阵同样大小的ARGB_8888图片
+     */
+    public static Bitmap render(BitMatrix matrix, int foreground, int background) {
+        return render(matrix, new RenderOptions().setColors(foreground, background));
+    }
+
+    /**
+     * @param matrix  位矩阵
+     * @param options 格式、颜色和复用的图片
+     * @return 与矩阵同样大小的图片，可能是options中复用的图片
+     */
+    public static Bitmap render(BitMatrix matrix, RenderOptions options) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        Bitmap bitmap = options.getInBitmap();
+        if (!canReuse(bitmap, width, height, options.getConfig())) {
+            bitmap = Bitmap.createBitmap(width, height, options.getConfig());
+        }
+        if (options.isAlphaMask()) {
+            renderMask(matrix, bitmap);
+            return bitmap;
+        }
+        // setPixels converts to RGB_565 as well
+        int[] band = band(width * Math.min(BAND_ROWS, height));
+        for (int top = 0; top < height; top += BAND_ROWS) {
+            int rows = Math.min(BAND_ROWS, height - top);
+            BitMatrixRenderer.renderRows(matrix, top, rows, options.getForeground(), options.getBackground(), band);
+            bitmap.setPixels(band, 0, width, 0, top, width, rows);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return 图片能否直接用来画这个大小和格式的码
+     */
+    public static boolean canReuse(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        return bitmap != null && !bitmap.isRecycled() && bitmap.isMutable()
+                && bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config;
+    }
+
+    /**
+     * ALPHA_8只画黑色模块，合并为矩形绘制，不经过int数组
+     */
+    private static void renderMask(BitMatrix matrix, Bitmap mask) {
+        mask.eraseColor(Color.TRANSPARENT);
+        final Canvas canvas = new Canvas(mask);
+        final Paint paint = new Paint();
+        paint.setAntiAlias(false);
+        try {
+            ModuleRects.forEach(matrix, new ModuleRects.RectConsumer() {
+                @Override
+                public void rect(int left, int top, int width, int height) {
+                    canvas.drawRect(left, top, left + width, top + height, paint);
+                }
+            });
+        } catch (IOException e) {
+            // Only thrown by consumers that write to a stream
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 把logo不透明的像素覆盖到图片上，完全透明的像素保留码的颜色
+     *
+     * @param target 码的图片，必须可修改
+     * @param logo   logo，不超出target
+     * @param left   logo左上角在target中的位置
+     * @param top    logo左上角在target中的位置
+     */
+    public static void overlay(Bitmap target, Bitmap logo, int left, int top) {
+        int logoWidth = logo.getWidth();
+        int logoHeight = logo.getHeight();
+        int[] logoPixels = new int[logoWidth * logoHeight];
+        int[] codePixels = new int[logoWidth * logoHeight];
+        logo.getPixels(logoPixels, 0, logoWidth, 0, 0, logoWidth, logoHeight);
+        target.getPixels(codePixels, 0, logoWidth, left, top, logoWidth, logoHeight);
+        for (int i = 0; i < logoPixels.length; i++) {
+            if (logoPixels[i] != 0) {
+                codePixels[i] = logoPixels[i];
+            }
+        }
+        target.setPixels(codePixels, 0, logoWidth, left, top, logoWidth, logoHeight);
+    }
+
+    private static int[] band(int length) {
+        int[] band = BAND.get();
+        if (band == null || band.length < length) {
+            band = new int[length];
+            BAND.set(band);
+        }
+        return band;
+    }
+
+}
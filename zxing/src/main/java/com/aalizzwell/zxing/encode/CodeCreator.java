@@ -18,11 +18,47 @@ public class CodeCreator {
 
     /*生成二维码*/
     public static Bitmap createQRCode(String content, int w, int h, Bitmap logo) {
+        return createQRCode(content, w, h, logo, null);
+    }
+
+    /**
+     * 生成二维码，同样的参数直接返回缓存中的图片
+     *
+     * @param cache 缓存，为null时每次重新生成；缓存中的图片会被共用，不能修改或recycle
+     */
+    public static Bitmap createQRCode(String content, int w, int h, Bitmap logo, CodeBitmapCache cache) {
+        return createQRCode(content, w, h, logo, new RenderOptions(), cache);
+    }
+
+    /**
+     * 生成二维码，可以选择图片格式、颜色，以及复用已有的图片
+     *
+     * @param options 图片格式等，ALPHA_8时不绘制logo
+     * @param cache   缓存，为null或复用图片时每次重新生成；缓存中的图片会被共用，不能修改或recycle
+     */
+    public static Bitmap createQRCode(String content, int w, int h, Bitmap logo,
+                                      RenderOptions options, CodeBitmapCache cache) {
 
 
         if (TextUtils.isEmpty(content)) {
             return null;
         }
+        if (options.isAlphaMask()) {
+            logo = null;
+        }
+        // The caller owns a reused bitmap, it must not end up shared through the cache
+        if (options.getInBitmap() != null) {
+            cache = null;
+        }
+        String key = null;
+        if (cache != null) {
+            key = CodeBitmapCache.key(content, BarcodeFormat.QR_CODE, w, h, ErrorCorrectionLevel.H, 0, logo)
+                    + "|" + options.cacheKey();
+            Bitmap cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
         /*偏移量*/
         int offsetX = w / 2;
         int offsetY = h / 2;
@@ -31,10 +67,17 @@ public class CodeCreator {
         Bitmap logoBitmap = null;
 
         if (logo != null) {
-            Matrix matrix = new Matrix();
-            float scaleFactor = Math.min(w * 1.0f / 5 / logo.getWidth(), h * 1.0f / 5 / logo.getHeight());
-            matrix.postScale(scaleFactor, scaleFactor);
-            logoBitmap = Bitmap.createBitmap(logo, 0, 0, logo.getWidth(), logo.getHeight(), matrix, true);
+            // 缩放后的logo放在同一个缓存中，列表中大量同样logo的码不必每次重新缩放；没有缓存时不保留
+            logoBitmap = cache == null ? null : cache.getScaledLogo(logo, w, h);
+            if (logoBitmap == null) {
+                Matrix matrix = new Matrix();
+                float scaleFactor = Math.min(w * 1.0f / 5 / logo.getWidth(), h * 1.0f / 5 / logo.getHeight());
+                matrix.postScale(scaleFactor, scaleFactor);
+                logoBitmap = Bitmap.createBitmap(logo, 0, 0, logo.getWidth(), logo.getHeight(), matrix, true);
+                if (cache != null) {
+                    cache.putScaledLogo(logo, w, h, logoBitmap);
+                }
+            }
         }
 
 
@@ -61,33 +104,15 @@ public class CodeCreator {
             matrix = new MultiFormatWriter().encode(content,
                     BarcodeFormat.QR_CODE, w, h, hints);
 
-            // 二维矩阵转为一维像素数组,也就是一直横着排了
-            int[] pixels = new int[w * h];
-            for (int y = 0; y < h; y++) {
-                for (int x = 0; x < w; x++) {
-                    if (x >= offsetX && x < offsetX + logoW && y >= offsetY && y < offsetY + logoH) {
-                        int pixel = logoBitmap.getPixel(x - offsetX, y - offsetY);
-                        if (pixel == 0) {
-                            if (matrix.get(x, y)) {
-                                pixel = 0xff000000;
-                            } else {
-                                pixel = 0xffffffff;
-                            }
-                        }
-                        pixels[y * w + x] = pixel;
-                    } else {
-                        if (matrix.get(x, y)) {
-                            pixels[y * w + x] = 0xff000000;
-                        } else {
-                            pixels[y * w + x] = 0xffffffff;
-                        }
-                    }
-                }
+            // 按行转换写入Bitmap,不再分配整张图的像素数组
+            Bitmap bitmap = CodeBitmapRenderer.render(matrix, options);
+            if (logoBitmap != null) {
+                // logo透明的像素保留码的颜色
+                CodeBitmapRenderer.overlay(bitmap, logoBitmap, offsetX, offsetY);
+            }
+            if (cache != null) {
+                cache.put(key, bitmap);
             }
-
-            Bitmap bitmap = Bitmap.createBitmap(w, h,
-                    Bitmap.Config.ARGB_8888);
-            bitmap.setPixels(pixels, 0, w, 0, 0, w, h);
             return bitmap;
 
 
@@ -0,0 +1,75 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+
+/**
+ * 码的Drawable，每次按当前bounds用{@link CodePainter}绘制，任意尺寸都不失真，也不占用Bitmap内存
+ * 没有固有尺寸，View使用wrap_content时需要指定大小。
+ */
+public class CodeDrawable extends Drawable {
+
+    private final CodePainter painter;
+    private int alpha = 0xff;
+
+    public CodeDrawable(CodePainter painter) {
+        this.painter = painter;
+    }
+
+    public CodePainter getPainter() {
+        return painter;
+    }
+
+    /**
+     * 更换logo并重绘
+     *
+     * @param logo 画在中间的logo，可为null
+     */
+    public void setLogo(Bitmap logo) {
+        painter.setLogo(logo);
+        invalidateSelf();
+    }
+
+    /**
+     * 更换颜色并重绘
+     */
+    public void setColors(int foreground, int background) {
+        painter.setColors(foreground, background);
+        invalidateSelf();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        painter.draw(canvas, getBounds());
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            painter.setAlpha(alpha);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        painter.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        // The background fills the bounds when it is opaque
+        return alpha == 0xff && (painter.getBackground() >>> 24) == 0xff ? PixelFormat.OPAQUE : PixelFormat.TRANSLUCENT;
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.IOException;
+
+/**
+ * 把码直接画到调用方的Canvas上，不生成中间的Bitmap
+ * 黑色模块合并为矩形后放进同一个Path（模块坐标），绘制时只做一次变换和一次drawPath，任意尺寸都不失真。
+ * 矩阵最好按每个模块一个像素生成（编码时宽高传0），空白边距包含在矩阵中，整个矩阵铺满绘制区域。
+ * Path只在构造时生成一次，同一个码可以反复绘制。只能在主线程使用。
+ */
+public class CodePainter {
+
+    /*logo边长占绘制区域短边的比例*/
+    private static final int LOGO_RATIO = 5;
+
+    private final int columns;
+    private final int rows;
+    private final Path path = new Path();
+    private final Paint foregroundPaint = new Paint();
+    private final Paint backgroundPaint = new Paint();
+    private final Paint logoPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF logoRect = new RectF();
+    private Bitmap logo;
+    private int foreground;
+    private int background;
+    private int alpha = 0xff;
+
+    /**
+     * @param matrix 位矩阵
+     */
+    public CodePainter(BitMatrix matrix) {
+        columns = matrix.getWidth();
+        rows = matrix.getHeight();
+        try {
+            ModuleRects.forEach(matrix, new ModuleRects.RectConsumer() {
+                @Override
+                public void rect(int left, int top, int width, int height) {
+                    path.addRect(left, top, left + width, top + height, Path.Direction.CW);
+                }
+            });
+        } catch (IOException e) {
+            // Only thrown by consumers that write to a stream
+            throw new IllegalStateException(e);
+        }
+        // Aliased edges keep modules crisp; adjacent rectangles in one path leave no seams
+        foregroundPaint.setAntiAlias(false);
+        foregroundPaint.setStyle(Paint.Style.FILL);
+        backgroundPaint.setStyle(Paint.Style.FILL);
+        setColors(BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE);
+    }
+
+    /**
+     * 不会触发重绘，已经显示的{@link CodeDrawable}使用{@link CodeDrawable#setColors(int, int)}
+     */
+    public CodePainter setColors(int foreground, int background) {
+        this.foreground = foreground;
+        this.background = background;
+        applyColors();
+        return this;
+    }
+
+    private void applyColors() {
+        foregroundPaint.setColor(foreground);
+        foregroundPaint.setAlpha((foreground >>> 24) * alpha / 0xff);
+        backgroundPaint.setColor(background);
+        backgroundPaint.setAlpha((background >>> 24) * alpha / 0xff);
+    }
+
+    /**
+     * 不会触发重绘，已经显示的{@link CodeDrawable}使用{@link CodeDrawable#setLogo(Bitmap)}
+     *
+     * @param logo 画在中间的logo，边长为绘制区域短边的1/5，可为null
+     */
+    public CodePainter setLogo(Bitmap logo) {
+        this.logo = logo;
+        return this;
+    }
+
+    public int getForeground() {
+        return foreground;
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    /**
+     * @return 每行的模块数
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @param alpha 整体透明度，与颜色本身的透明度相乘
+     */
+    void setAlpha(int alpha) {
+        this.alpha = alpha;
+        applyColors();
+        logoPaint.setAlpha(alpha);
+    }
+
+    /**
+     * @param colorFilter 与透明度一样作用于码和logo
+     */
+    void setColorFilter(ColorFilter colorFilter) {
+        foregroundPaint.setColorFilter(colorFilter);
+        backgroundPaint.setColorFilter(colorFilter);
+        logoPaint.setColorFilter(colorFilter);
+    }
+
+    public void draw(Canvas canvas, Rect dst) {
+        draw(canvas, dst.left, dst.top, dst.right, dst.bottom);
+    }
+
+    public void draw(Canvas canvas, RectF dst) {
+        draw(canvas, dst.left, dst.top, dst.right, dst.bottom);
+    }
+
+    /**
+     * 把整个矩阵画到指定区域，先画背景，再画码和logo
+     */
+    public void draw(Canvas canvas, float left, float top, float right, float bottom) {
+        float width = right - left;
+        float height = bottom - top;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (backgroundPaint.getAlpha() != 0) {
+            canvas.drawRect(left, top, right, bottom, backgroundPaint);
+        }
+        int saveCount = canvas.save();
+        canvas.translate(left, top);
+        canvas.scale(width / columns, height / rows);
+        canvas.drawPath(path, foregroundPaint);
+        canvas.restoreToCount(saveCount);
+        if (logo != null) {
+            float scale = Math.min(width, height) / LOGO_RATIO / Math.max(logo.getWidth(), logo.getHeight());
+            float logoWidth = logo.getWidth() * scale;
+            float logoHeight = logo.getHeight() * scale;
+            float logoLeft = left + (width - logoWidth) / 2;
+            float logoTop = top + (height - logoHeight) / 2;
+            logoRect.set(logoLeft, logoTop, logoLeft + logoWidth, logoTop + logoHeight);
+            canvas.drawBitmap(logo, null, logoRect, logoPaint);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * 共用的调色板，用于绘制ALPHA_8格式的码
+ * ALPHA_8的码只保存黑色模块的位置，颜色来自绘制时的画笔。同一屏的码共用一个调色板，每张码只占1/4的内存，
+ * 改颜色（例如切换深色模式）时只需修改调色板，不必重新生成。只能在主线程使用。
+ */
+public class CodePalette {
+
+    private final Paint foregroundPaint = new Paint();
+    private final Paint backgroundPaint = new Paint();
+    private final RectF bounds = new RectF();
+
+    public CodePalette(int foreground, int background) {
+        // Nearest neighbour keeps module edges sharp when the mask is scaled
+        foregroundPaint.setFilterBitmap(false);
+        foregroundPaint.setAntiAlias(false);
+        backgroundPaint.setStyle(Paint.Style.FILL);
+        setColors(foreground, background);
+    }
+
+    public void setColors(int foreground, int background) {
+        foregroundPaint.setColor(foreground);
+        backgroundPaint.setColor(background);
+    }
+
+    public int getForeground() {
+        return foregroundPaint.getColor();
+    }
+
+    public int getBackground() {
+        return backgroundPaint.getColor();
+    }
+
+    /**
+     * @return 绘制ALPHA_8图片的画笔，也可以交给BitmapDrawable等自行绘制，不画背景
+     */
+    public Paint getPaint() {
+        return foregroundPaint;
+    }
+
+    /**
+     * 先画背景，再按前景色画码
+     *
+     * @param canvas 画布
+     * @param mask   ALPHA_8格式的码
+     * @param dst    绘制区域
+     */
+    public void draw(Canvas canvas, Bitmap mask, Rect dst) {
+        bounds.set(dst);
+        if ((backgroundPaint.getColor() >>> 24) != 0) {
+            canvas.drawRect(bounds, backgroundPaint);
+        }
+        canvas.drawBitmap(mask, null, bounds, foregroundPaint);
+    }
+
+}
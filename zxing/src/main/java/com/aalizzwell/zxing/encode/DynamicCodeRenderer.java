@@ -0,0 +1,209 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 定时刷新的二维码，例如付款码
+ * 一直画在同一张图片上。每次刷新只编码出模块矩阵（不生成放大后的BitMatrix），与上一次逐个模块比较，只重画变化的模块，
+ * 同一行连续变化为同一颜色的模块合并为一个矩形；变化的模块落在logo下时再把缓存的logo画一次。
+ * 布局与QRCodeWriter一致：模块放大为整数倍并居中。刷新会直接修改图片，需要在主线程调用{@link #apply}，之后重绘显示它的View；
+ * 编码较慢，可以先在后台线程调用{@link #encode}。
+ */
+public class DynamicCodeRenderer {
+
+    /*logo边长占图片边长的比例*/
+    private static final int LOGO_RATIO = 5;
+    /*空白边距，单位为模块，与QRCodeUtil一致*/
+    private static final int QUIET_ZONE = 1;
+
+    private final int width;
+    private final int height;
+    private final ErrorCorrectionLevel level;
+    private final Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+    private final Bitmap bitmap;
+    private final Canvas canvas;
+    private final Paint foregroundPaint = new Paint();
+    private final Paint backgroundPaint = new Paint();
+    private final Bitmap logo;
+    private final Rect logoRect = new Rect();
+    /*上一次的模块，[y][x]，1为黑色*/
+    private byte[][] modules;
+    private int moduleSize;
+    private int left;
+    private int top;
+
+    /**
+     * @param width  图片宽度
+     * @param height 图片高度
+     * @param logo   logo，缩放为图片大小的1/5后缓存，可为null
+     */
+    public DynamicCodeRenderer(int width, int height, Bitmap logo) {
+        this(width, height, logo, ErrorCorrectionLevel.H, new RenderOptions());
+    }
+
+    /**
+     * @param level   容错级别
+     * @param options 图片格式、颜色以及复用的图片；ALPHA_8时不绘制logo
+     */
+    public DynamicCodeRenderer(int width, int height, Bitmap logo, ErrorCorrectionLevel level, RenderOptions options) {
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        hints.put(EncodeHintType.CHARACTER_SET, "utf-8");
+        Bitmap target = options.getInBitmap();
+        if (!CodeBitmapRenderer.canReuse(target, width, height, options.getConfig())) {
+            target = Bitmap.createBitmap(width, height, options.getConfig());
+        }
+        bitmap = target;
+        canvas = new Canvas(bitmap);
+        // Replace pixels instead of blending, so a translucent background does not keep old modules visible
+        PorterDuffXfermode src = new PorterDuffXfermode(PorterDuff.Mode.SRC);
+        foregroundPaint.setXfermode(src);
+        backgroundPaint.setXfermode(src);
+        if (options.isAlphaMask()) {
+            foregroundPaint.setColor(BitMatrixRenderer.BLACK);
+            backgroundPaint.setColor(0);
+            logo = null;
+        } else {
+            foregroundPaint.setColor(options.getForeground());
+            backgroundPaint.setColor(options.getBackground());
+        }
+        this.logo = logo == null ? null : scaleLogo(logo);
+        if (this.logo != null) {
+            int logoLeft = (width - this.logo.getWidth()) / 2;
+            int logoTop = (height - this.logo.getHeight()) / 2;
+            logoRect.set(logoLeft, logoTop, logoLeft + this.logo.getWidth(), logoTop + this.logo.getHeight());
+        }
+    }
+
+    private Bitmap scaleLogo(Bitmap logo) {
+        float scale = Math.min(width * 1.0f / LOGO_RATIO / logo.getWidth(), height * 1.0f / LOGO_RATIO / logo.getHeight());
+        int logoWidth = Math.max(1, Math.round(logo.getWidth() * scale));
+        int logoHeight = Math.max(1, Math.round(logo.getHeight() * scale));
+        return Bitmap.createScaledBitmap(logo, logoWidth, logoHeight, true);
+    }
+
+    /**
+     * @return 显示用的图片，每次刷新都是同一个对象
+     */
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * 只编码，不修改图片，可以在后台线程调用
+     *
+     * @return 模块矩阵，不含空白边距
+     */
+    public ByteMatrix encode(String content) throws WriterException {
+        return Encoder.encode(content, level, hints).getMatrix();
+    }
+
+    /**
+     * 编码并刷新图片
+     *
+     * @return 重画的模块数
+     */
+    public int update(String content) throws WriterException {
+        return apply(encode(content));
+    }
+
+    /**
+     * 把新的模块矩阵画到图片上
+     *
+     * @param matrix {@link #encode}的结果
+     * @return 重画的模块数，版本变化或第一次时为全部模块
+     */
+    public int apply(ByteMatrix matrix) {
+        int columns = matrix.getWidth();
+        int rows = matrix.getHeight();
+        byte[][] next = matrix.getArray();
+        if (modules == null || modules.length != rows || modules[0].length != columns) {
+            return redraw(next, columns, rows);
+        }
+        int changed = 0;
+        boolean logoCovered = false;
+        for (int y = 0; y < rows; y++) {
+            byte[] previousRow = modules[y];
+            byte[] row = next[y];
+            int x = 0;
+            while (x < columns) {
+                if (row[x] == previousRow[x]) {
+                    x++;
+                    continue;
+                }
+                // Extend over following modules that changed to the same colour
+                byte value = row[x];
+                int end = x + 1;
+                while (end < columns && row[end] == value && previousRow[end] != value) {
+                    end++;
+                }
+                logoCovered |= drawRun(x, end, y, value == 1);
+                changed += end - x;
+                x = end;
+            }
+            System.arraycopy(row, 0, previousRow, 0, columns);
+        }
+        if (logoCovered) {
+            canvas.drawBitmap(logo, null, logoRect, null);
+        }
+        return changed;
+    }
+
+    private int redraw(byte[][] next, int columns, int rows) {
+        // Same layout as QRCodeWriter: integer module size, centred, quiet zone absorbed by the padding
+        moduleSize = Math.max(1, Math.min(width / (columns + QUIET_ZONE * 2), height / (rows + QUIET_ZONE * 2)));
+        left = (width - columns * moduleSize) / 2;
+        top = (height - rows * moduleSize) / 2;
+        modules = new byte[rows][columns];
+        canvas.drawRect(0, 0, width, height, backgroundPaint);
+        for (int y = 0; y < rows; y++) {
+            byte[] row = next[y];
+            int x = 0;
+            while (x < columns) {
+                if (row[x] != 1) {
+                    x++;
+                    continue;
+                }
+                int end = x + 1;
+                while (end < columns && row[end] == 1) {
+                    end++;
+                }
+                drawRun(x, end, y, true);
+                x = end;
+            }
+            System.arraycopy(row, 0, modules[y], 0, columns);
+        }
+        if (logo != null) {
+            canvas.drawBitmap(logo, null, logoRect, null);
+        }
+        return columns * rows;
+    }
+
+    /**
+     * @return 是否与logo重叠
+     */
+    private boolean drawRun(int fromX, int toX, int y, boolean dark) {
+        int l = left + fromX * moduleSize;
+        int t = top + y * moduleSize;
+        int r = left + toX * moduleSize;
+        int b = t + moduleSize;
+        canvas.drawRect(l, t, r, b, dark ? foregroundPaint : backgroundPaint);
+        return logo != null && logoRect.intersects(l, t, r, b);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.aalizzwell.zxing.encode;
+
+import android.graphics.Bitmap;
+
+/**
+ * 生成码图片的配置项，见{@link CodeBitmapRenderer#render(com.google.zxing.common.BitMatrix, RenderOptions)}
+ */
+public class RenderOptions {
+    //图片格式：ARGB_8888；RGB_565内存减半，不支持透明；ALPHA_8只有ARGB_8888的1/4，只保存黑色模块的位置，
+    //显示时由画笔着色，见CodePalette，不绘制logo
+    private Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    //黑色模块的颜色，ALPHA_8时不使用
+    private int foreground = BitMatrixRenderer.BLACK;
+    //白色模块的颜色，ALPHA_8时不使用
+    private int background = BitMatrixRenderer.WHITE;
+    //复用的图片，可修改、大小和格式都一致时直接画在上面，否则新建
+    private Bitmap inBitmap;
+
+    public Bitmap.Config getConfig() {
+        return config;
+    }
+
+    public RenderOptions setConfig(Bitmap.Config config) {
+        this.config = config;
+        return this;
+    }
+
+    public int getForeground() {
+        return foreground;
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    public RenderOptions setColors(int foreground, int background) {
+        this.foreground = foreground;
+        this.background = background;
+        return this;
+    }
+
+    public Bitmap getInBitmap() {
+        return inBitmap;
+    }
+
+    public RenderOptions setInBitmap(Bitmap inBitmap) {
+        this.inBitmap = inBitmap;
+        return this;
+    }
+
+    public boolean isAlphaMask() {
+        return config == Bitmap.Config.ALPHA_8;
+    }
+
+    /**
+     * @return 区分缓存的后缀，复用图片不影响结果
+     */
+    public String cacheKey() {
+        return config + "|" + Integer.toHexString(foreground) + "|" + Integer.toHexString(background);
+    }
+
+}
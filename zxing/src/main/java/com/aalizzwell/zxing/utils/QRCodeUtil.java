@@ -3,20 +3,30 @@ package com.aalizzwell.zxing.utils;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.support.annotation.NonNull;
 import android.util.Log;
 import com.google.zxing.*;
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.common.GlobalHistogramBinarizer;
-import com.google.zxing.common.HybridBinarizer;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.aalizzwell.zxing.decode.BitmapImageLoader;
+import com.aalizzwell.zxing.decode.BitmapLuminanceSource;
 import com.aalizzwell.zxing.decode.DecodeFormatManager;
+import com.aalizzwell.zxing.decode.MultiScaleDecoder;
+import com.aalizzwell.zxing.decode.MultiScaleOption;
+import com.aalizzwell.zxing.encode.BitMatrixRenderer;
+import com.aalizzwell.zxing.encode.CodeBitmapCache;
+import com.aalizzwell.zxing.encode.CodeBitmapRenderer;
+import com.aalizzwell.zxing.encode.CodeDrawable;
+import com.aalizzwell.zxing.encode.CodePainter;
+import com.aalizzwell.zxing.encode.PdfWriter;
+import com.aalizzwell.zxing.encode.PngWriter;
+import com.aalizzwell.zxing.encode.RenderOptions;
+import com.aalizzwell.zxing.encode.SvgWriter;
 
-import java.util.EnumMap;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Vector;
 
 
 public class QRCodeUtil {
@@ -27,25 +37,21 @@ public class QRCodeUtil {
      * 识别二维码图片
      * 二维码识别算法主要有两种，分别是HybridBinarizer和GlobalHistogramBinarizer
      * 识别过程：RGB图像→灰度化图像→获取直方图→滤波→识别
+     * 从缩小的图开始逐级提高分辨率识别，见{@link MultiScaleDecoder}
+     * 每次调用都会创建reader，识别多张图片时使用{@link com.aalizzwell.zxing.decode.BatchImageDecoder}
      */
     public static Result parseQRCode(String bitmapPath) {
         Result result = null;
         try {
-            MultiFormatReader reader = new MultiFormatReader();
-            reader.setHints(getDecodeHintType());
-            RGBLuminanceSource source = getRGBLuminanceSource(getBitmap(bitmapPath, 400, 400));
-            BinaryBitmap hybBitmap = new BinaryBitmap(new HybridBinarizer(source));
-            try {
-                result = reader.decodeWithState(hybBitmap);
-            } catch (Exception e) {
-                BinaryBitmap ghbBitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
-                try {
-                    result = reader.decodeWithState(ghbBitmap);
-                } catch (Exception ne) {
-                    Log.e(TAG, "parseCode: 解析二维码失败");
-                }
-            } finally {
-                reader.reset();
+            Bitmap bitmap = getBitmap(bitmapPath, BitmapImageLoader.DEFAULT_MAX_SIZE, BitmapImageLoader.DEFAULT_MAX_SIZE);
+            // Converted to luminance up front, the bitmap is not needed while decoding
+            BitmapLuminanceSource source = new BitmapLuminanceSource(bitmap);
+            bitmap.recycle();
+            MultiScaleDecoder decoder = new MultiScaleDecoder(DecodeFormatManager.buildImageHints(), new MultiScaleOption());
+            result = decoder.decode(source);
+            Log.d(TAG, "parseCode: " + decoder.getAttempts());
+            if (result == null) {
+                Log.e(TAG, "parseCode: 解析二维码失败");
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -68,27 +74,55 @@ public class QRCodeUtil {
      * 生成二维码
      */
     public static Bitmap createQRCode(String content, int size, Bitmap logo) {
+        return createQRCode(content, size, logo, null);
+    }
+
+    /**
+     * 生成二维码，同样的参数直接返回缓存中的图片
+     *
+     * @param cache 缓存，为null时每次重新生成；缓存中的图片会被共用，不能修改或recycle
+     */
+    public static Bitmap createQRCode(String content, int size, Bitmap logo, CodeBitmapCache cache) {
+        return createQRCode(content, size, logo, new RenderOptions(), cache);
+    }
+
+    /**
+     * 生成二维码，可以选择图片格式、颜色，以及复用已有的图片
+     * 同屏显示大量二维码时，RGB_565或ALPHA_8（配合{@link com.aalizzwell.zxing.encode.CodePalette}）可以大幅减少内存
+     *
+     * @param options 图片格式等，ALPHA_8时不绘制logo
+     * @param cache   缓存，为null或复用图片时每次重新生成；缓存中的图片会被共用，不能修改或recycle
+     */
+    public static Bitmap createQRCode(String content, int size, Bitmap logo, RenderOptions options,
+                                      CodeBitmapCache cache) {
+        if (options.isAlphaMask()) {
+            logo = null;
+        }
+        // The caller owns a reused bitmap, it must not end up shared through the cache
+        if (options.getInBitmap() != null) {
+            cache = null;
+        }
+        String key = null;
+        if (cache != null) {
+            key = CodeBitmapCache.key(content, BarcodeFormat.QR_CODE, size, size, ErrorCorrectionLevel.H, 1, logo)
+                    + "|" + options.cacheKey();
+            Bitmap cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
             //图像数据转换，使用了矩阵转换
             BitMatrix bitMatrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, getEncodeHintType());
-            int[] pixels = new int[size * size];
-            //创建像素数组,并根据BitMatrix(位矩阵)对象为数组元素赋颜色值 */
-            for (int y = 0; y < size; y++) {
-                for (int x = 0; x < size; x++) {
-                    if (bitMatrix.get(x, y)) {
-                        pixels[y * size + x] = 0xff000000;// 黑色色块像素设置
-                    } else {
-                        pixels[y * size + x] = 0xffffffff;// 白色色块像素设置
-                    }
-                }
-            }
-            //创建Bitmap对象,根据像素数组设置Bitmap每个像素点的颜色值,之后返回Bitmap对象
-            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-            bitmap.setPixels(pixels, 0, size, 0, 0, size, size);
+            //按行把BitMatrix(位矩阵)转为颜色值写入Bitmap,之后返回Bitmap对象
+            Bitmap bitmap = CodeBitmapRenderer.render(bitMatrix, options);
 
             if (logo != null) {
                 bitmap = addLogo(bitmap, logo);
             }
+            if (cache != null) {
+                cache.put(key, bitmap);
+            }
             return bitmap;
         } catch (WriterException e) {
             e.printStackTrace();
@@ -97,6 +131,61 @@ public class QRCodeUtil {
         return null;
     }
 
+    /**
+     * 生成二维码的Drawable，绘制时直接画到View的Canvas上，不生成Bitmap，任意尺寸都不失真
+     *
+     * @param content 文本内容
+     * @param logo    logo，可为null
+     */
+    public static CodeDrawable createQRCodeDrawable(String content, Bitmap logo) throws WriterException {
+        BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0, getEncodeHintType());
+        return new CodeDrawable(new CodePainter(modules).setLogo(logo));
+    }
+
+    /**
+     * 生成SVG格式的二维码，不生成Bitmap，适合打印任意尺寸
+     *
+     * @param content 文本内容
+     * @param out     输出，写完后不关闭
+     */
+    public static void writeQRCodeSvg(String content, OutputStream out) throws WriterException, IOException {
+        // Size 0 gives one pixel per module
+        BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0, getEncodeHintType());
+        SvgWriter.write(modules, out);
+    }
+
+    /**
+     * 生成单页PDF格式的二维码
+     *
+     * @param content    文本内容
+     * @param sizeMillis 页面边长，单位毫米
+     * @param out        输出，写完后不关闭
+     */
+    public static void writeQRCodePdf(String content, float sizeMillis, OutputStream out)
+            throws WriterException, IOException {
+        BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0, getEncodeHintType());
+        double size = sizeMillis * PdfWriter.POINTS_PER_MM;
+        PdfWriter.write(modules, size, size, BitMatrixRenderer.BLACK, BitMatrixRenderer.WHITE, out);
+    }
+
+    /**
+     * 生成1位PNG格式的二维码，不经过Bitmap.compress，用于保存或上传
+     *
+     * @param content    文本内容
+     * @param moduleSize 每个模块的边长，单位像素
+     * @param out        输出，写完后不关闭
+     */
+    public static void writeQRCodePng(String content, int moduleSize, OutputStream out)
+            throws WriterException, IOException {
+        BitMatrix modules = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0, getEncodeHintType());
+        PngWriter writer = new PngWriter();
+        try {
+            writer.write(modules, moduleSize, out);
+        } finally {
+            writer.close();
+        }
+    }
+
     /**
      * 在二维码中间添加Logo图案
      */
@@ -118,37 +207,17 @@ public class QRCodeUtil {
         }
         //logo大小为二维码整体大小的1/6
         float scaleFactor = srcWidth * 1.0f / 6 / logoWidth;
-        Bitmap bitmap = Bitmap.createBitmap(srcWidth, srcHeight, Bitmap.Config.ARGB_8888);
+        //直接画在生成的二维码上，不再复制一张同样大小的图片，RGB_565同样可以绘制
         try {
-            Canvas canvas = new Canvas(bitmap);
-            canvas.drawBitmap(src, 0, 0, null);
+            Canvas canvas = new Canvas(src);
             canvas.scale(scaleFactor, scaleFactor, srcWidth >> 1, srcHeight >> 1);
             canvas.drawBitmap(logo, (srcWidth - logoWidth) >> 1, (srcHeight - logoHeight) >> 1, null);
-            canvas.save();
-            canvas.restore();
         } catch (Exception e) {
-            bitmap = null;
             e.printStackTrace();
+            return null;
         }
 
-        return bitmap;
-    }
-
-    /**
-     * 获取RGBLuminanceSource
-     * 从相册取到的图片，都是RGB图像
-     *
-     * @param bitmap QRBitmap
-     * @return RGBLuminanceSource
-     */
-    private static RGBLuminanceSource getRGBLuminanceSource(@NonNull Bitmap bitmap) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-
-        int[] pixels = new int[width * height];
-        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-        return new RGBLuminanceSource(width, height, pixels);
-
+        return src;
     }
 
     /**
@@ -165,10 +234,20 @@ public class QRCodeUtil {
         options.inJustDecodeBounds = true;
         BitmapFactory.decodeFile(filePath, options);
         options.inSampleSize = calculateInSampleSize(options, maxWidth, maxHeight);
+        options.inPreferredConfig = getDecodeConfig(options);
         options.inJustDecodeBounds = false;
         return BitmapFactory.decodeFile(filePath, options);
     }
 
+    /**
+     * 识别用的图片格式：JPEG没有透明通道，用RGB_565节省一半内存；其他格式可能有透明背景，仍用ARGB_8888
+     *
+     * @param options 已经读取过尺寸的options
+     */
+    public static Bitmap.Config getDecodeConfig(BitmapFactory.Options options) {
+        return "image/jpeg".equals(options.outMimeType) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+
 
     /**
      * Return the sample size.
@@ -178,9 +257,9 @@ public class QRCodeUtil {
      * @param maxHeight The maximum height.
      * @return the sample size
      */
-    private static int calculateInSampleSize(final BitmapFactory.Options options,
-                                             final int maxWidth,
-                                             final int maxHeight) {
+    public static int calculateInSampleSize(final BitmapFactory.Options options,
+                                            final int maxWidth,
+                                            final int maxHeight) {
         int height = options.outHeight;
         int width = options.outWidth;
         int inSampleSize = 1;
@@ -190,22 +269,6 @@ public class QRCodeUtil {
         return inSampleSize;
     }
 
-    /**
-     * 配置二维码识别参数
-     */
-    private static Map<DecodeHintType, Object> getDecodeHintType() {
-        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
-        Vector<BarcodeFormat> decodeFormats = new Vector<>();
-        //二维码
-        decodeFormats.addAll(DecodeFormatManager.QR_CODE_FORMATS);
-        decodeFormats.addAll(DecodeFormatManager.DATA_MATRIX_FORMATS);
-        //QR_CODE使用hard模式编码，速度精度都有明显上升
-        hints.put(DecodeHintType.TRY_HARDER, DecodeFormatManager.QR_CODE_FORMATS);
-        //编码格式
-        hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
-        return hints;
-    }
-
     /**
      * 配置生成二维码参数
      */